@@ -0,0 +1,83 @@
+package com.fredhopper.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks once per thread count and writes all the
+ * results to a single JSON file to track them across releases;
+ * the thread count of a result is in its <code>threads</code>
+ * field.
+ * <p>
+ * Usage:
+ * <code>BenchmarkRunner [-t 1,4,16] [-o jmh-result.json] [-p name=value] [include...]</code>
+ * where <code>include</code> is a regular expression of the
+ * benchmarks to run; all of them by default. Without
+ * <code>-t</code>, the thread count of every benchmark is its
+ * own default.
+ */
+public final class BenchmarkRunner {
+
+  /**
+   * The default result file: {@value}.
+   */
+  public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  private BenchmarkRunner() {}
+
+  /**
+   * @param args the arguments
+   * @throws RunnerException if a benchmark fails
+   */
+  public static void main(String[] args) throws RunnerException {
+    final List<Integer> threads = new ArrayList<>();
+    final List<String> includes = new ArrayList<>();
+    final List<String[]> parameters = new ArrayList<>();
+    String resultFile = DEFAULT_RESULT_FILE;
+    for (int i = 0; i < args.length; i++) {
+      switch (args[i]) {
+        case "-t":
+          for (String t : args[++i].split(",")) {
+            threads.add(Integer.valueOf(t.trim()));
+          }
+          break;
+        case "-o":
+          resultFile = args[++i];
+          break;
+        case "-p":
+          parameters.add(args[++i].split("=", 2));
+          break;
+        default:
+          includes.add(args[i]);
+      }
+    }
+    if (threads.isEmpty()) {
+      threads.add(null);
+    }
+    final Collection<RunResult> results = new ArrayList<>();
+    for (Integer t : threads) {
+      final ChainedOptionsBuilder options = new OptionsBuilder();
+      if (includes.isEmpty()) {
+        options.include(".*Benchmark");
+      }
+      includes.forEach(options::include);
+      parameters.forEach(p -> options.param(p[0], p[1].split(",")));
+      if (t != null) {
+        options.threads(t);
+      }
+      results.addAll(new Runner(options.build()).run());
+    }
+    ResultFormatFactory.getInstance(ResultFormatType.JSON, resultFile).writeOut(results);
+    System.out.println("Results of " + results.size() + " runs written to " + resultFile);
+  }
+
+}
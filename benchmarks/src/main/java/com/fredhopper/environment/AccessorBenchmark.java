@@ -0,0 +1,73 @@
+package com.fredhopper.environment;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of the derived accessors of {@link KeyValueEnvironment}.
+ * Run with <code>-prof gc</code>; the accessors are expected to
+ * allocate nothing, i.e. <code>gc.alloc.rate.norm</code> close
+ * to 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccessorBenchmark {
+
+  private Environment environment;
+
+  @Setup
+  public void setUp() {
+    Map<String, String> env = new HashMap<>();
+    env.put(Environment.APPLICATION_NAME, "app");
+    env.put("app.server.host", "localhost");
+    env.put("app.server.port", "8080");
+    environment = new KeyValueEnvironment(env);
+  }
+
+  @Benchmark
+  public String getLogFileName() {
+    return environment.getLogFileName();
+  }
+
+  @Benchmark
+  public String getRotatingLogFilePattern() {
+    return environment.getRotatingLogFilePattern();
+  }
+
+  @Benchmark
+  public String getAccessLogFileName() {
+    return environment.getAccessLogFileName();
+  }
+
+  @Benchmark
+  public String getRotatingAccessLogFileName() {
+    return environment.getRotatingAccessLogFileName();
+  }
+
+  @Benchmark
+  public String getContextPath() {
+    return environment.getContextPath();
+  }
+
+  @Benchmark
+  public int getServerPort() {
+    return environment.getServerPort();
+  }
+
+}
@@ -0,0 +1,72 @@
+package com.fredhopper.environment;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The hot paths of {@link Environment} per size of the
+ * environment: the lookups of {@link Environment#getValue(String)}
+ * and the typed accessors, and
+ * {@link Environment#createEnvironment(Map)} with defaults of
+ * that size on top of {@link System#getenv()} and
+ * {@link System#getProperties()}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvironmentBenchmark {
+
+  @Param({"100", "1000", "50000"})
+  public int size;
+
+  private Map<String, String> defaults;
+  private Environment environment;
+  private String[] keys;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    defaults = EnvironmentBenchmarks.entries(size);
+    defaults.put("benchmark.int", "42");
+    environment = Environment.createEnvironment(defaults);
+    keys = defaults.keySet().toArray(new String[0]);
+  }
+
+  @Benchmark
+  public String getValueHit() {
+    index = (index + 1) % keys.length;
+    return environment.getValue(keys[index]);
+  }
+
+  @Benchmark
+  public String getValueMiss() {
+    return environment.getValue("missing.key");
+  }
+
+  @Benchmark
+  public int getInt() {
+    return environment.getInt("benchmark.int", 0);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public Environment createEnvironment() {
+    return Environment.createEnvironment(defaults);
+  }
+
+}
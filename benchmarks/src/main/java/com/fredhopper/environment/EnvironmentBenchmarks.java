@@ -0,0 +1,26 @@
+package com.fredhopper.environment;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Common fixtures of the environment benchmarks.
+ */
+final class EnvironmentBenchmarks {
+
+  private EnvironmentBenchmarks() {}
+
+  /**
+   * @param size the number of entries
+   * @return a typical environment of <code>size</code> dotted
+   *         keys
+   */
+  static Map<String, String> entries(int size) {
+    final Map<String, String> entries = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      entries.put("module" + (i % 50) + ".component" + i + ".setting", "value-" + i);
+    }
+    return entries;
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.fredhopper.environment;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link PropertiesParser} with
+ * {@link Properties#load(InputStream)} and the copy of its
+ * entries into a map to load an environment file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+
+  @Param({"1000", "50000"})
+  public int size;
+
+  private Path file;
+
+  @Setup
+  public void setUp() throws IOException {
+    file = Files.createTempFile("parser-benchmark", ".properties");
+    final Properties properties = new Properties();
+    properties.putAll(EnvironmentBenchmarks.entries(size));
+    try (OutputStream out = Files.newOutputStream(file)) {
+      properties.store(out, null);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  @Benchmark
+  public Map<String, String> parser() throws IOException {
+    return PropertiesParser.parse(file);
+  }
+
+  @Benchmark
+  public Map<String, String> properties() throws IOException {
+    final Properties properties = new Properties();
+    try (InputStream is = Files.newInputStream(file)) {
+      properties.load(is);
+    }
+    final Map<String, String> env = new HashMap<>();
+    properties.stringPropertyNames().forEach(p -> env.put(p, properties.getProperty(p)));
+    return env;
+  }
+
+}
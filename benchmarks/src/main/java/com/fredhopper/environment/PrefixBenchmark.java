@@ -0,0 +1,61 @@
+package com.fredhopper.environment;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares enumerating the keys under a prefix through the
+ * sorted index of {@link KeyValueEnvironment} with the linear
+ * scan of {@link Environment#getSubEnvironment(String)}, which
+ * a read-through {@link LayeredMap} falls back to. A prefix
+ * matches one in fifty keys of the fixture.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrefixBenchmark {
+
+  @Param({"indexed", "scan"})
+  public String lookup;
+
+  @Param({"1000", "50000"})
+  public int size;
+
+  private Environment environment;
+  private int module;
+
+  @Setup
+  public void setUp() {
+    final Map<String, String> entries = FrozenStringMap.copyOf(EnvironmentBenchmarks.entries(size));
+    environment = new KeyValueEnvironment("indexed".equals(lookup) ? entries
+        : LayeredMap.of(entries));
+    // Builds the index
+    environment.getSubEnvironment("");
+  }
+
+  @Benchmark
+  public void enumerate(Blackhole blackhole) {
+    module = (module + 1) % 50;
+    final Environment sub = environment.getSubEnvironment("module" + module + ".");
+    for (Map.Entry<String, String> entry : sub.asMap().entrySet()) {
+      blackhole.consume(entry);
+    }
+  }
+
+}
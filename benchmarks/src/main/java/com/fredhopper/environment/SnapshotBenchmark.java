@@ -0,0 +1,75 @@
+package com.fredhopper.environment;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares loading an environment file by parsing it with
+ * loading it from a valid {@link EnvironmentSnapshot}, which
+ * includes the check of the fingerprint of the file.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+  @Param({"100", "5000"})
+  public int size;
+
+  private Path directory;
+  private Path file;
+  private Path snapshot;
+
+  @Setup
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("snapshot-benchmark");
+    file = directory.resolve("env.properties");
+    snapshot = directory.resolve("env.snapshot");
+    final Properties properties = new Properties();
+    properties.putAll(EnvironmentBenchmarks.entries(size));
+    try (OutputStream out = Files.newOutputStream(file)) {
+      properties.store(out, null);
+    }
+    EnvironmentSnapshot.load(snapshot, file);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(snapshot);
+    Files.deleteIfExists(file);
+    Files.deleteIfExists(directory);
+  }
+
+  @Benchmark
+  public Map<String, String> parse() {
+    System.clearProperty(Environment.ENVIRONMENT_SNAPSHOT);
+    return EnvironmentLoader.loadFile(file);
+  }
+
+  @Benchmark
+  public Map<String, String> snapshot() {
+    return EnvironmentSnapshot.read(snapshot, file);
+  }
+
+}
@@ -0,0 +1,69 @@
+package com.fredhopper.environment;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares {@link FrozenStringMap} with an unmodifiable
+ * {@link HashMap} as the storage of an environment. Run
+ * <code>build</code> with <code>-prof gc</code> to compare the
+ * footprint of the storage through its allocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageBenchmark {
+
+  @Param({"frozen", "hashmap"})
+  public String storage;
+
+  @Param({"100", "5000"})
+  public int size;
+
+  private Map<String, String> source;
+  private Map<String, String> map;
+  private String[] keys;
+  private int index;
+
+  @Setup
+  public void setUp() {
+    source = EnvironmentBenchmarks.entries(size);
+    map = build();
+    keys = source.keySet().toArray(new String[0]);
+  }
+
+  @Benchmark
+  public String getHit() {
+    index = (index + 1) % keys.length;
+    return map.get(keys[index]);
+  }
+
+  @Benchmark
+  public String getMiss() {
+    return map.get("missing.key");
+  }
+
+  @Benchmark
+  public Map<String, String> build() {
+    return "frozen".equals(storage) ? FrozenStringMap.copyOf(source)
+        : Collections.unmodifiableMap(new HashMap<>(source));
+  }
+
+}
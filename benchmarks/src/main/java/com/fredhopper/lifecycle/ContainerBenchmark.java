@@ -0,0 +1,88 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Start and stop latency and footprint of {@link Container} per
+ * execution mode; <code>startStop</code> also samples the
+ * percentiles of the latency. Run with <code>-prof gc</code> to
+ * compare the allocation per container:
+ * <ul>
+ * <li><code>eager</code>: the behavior before lazy thread
+ * creation, i.e. two unstarted {@link Thread} objects per
+ * container.
+ * <li><code>threads</code>: a new platform thread per stage.
+ * <li><code>shared</code>: {@link LifeCycleExecutors#shared()}.
+ * <li><code>virtual</code>:
+ * {@link LifeCycleExecutors#virtualThreads()}.
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ContainerBenchmark {
+
+  @Param({"eager", "threads", "shared", "virtual"})
+  public String mode;
+
+  private Executor executor;
+
+  @Setup
+  public void setUp() {
+    switch (mode) {
+      case "shared":
+        executor = LifeCycleExecutors.shared();
+        break;
+      case "virtual":
+        executor = LifeCycleExecutors.virtualThreads();
+        break;
+      default:
+        executor = null;
+    }
+  }
+
+  @Benchmark
+  public void construct(Blackhole blackhole) {
+    blackhole.consume(newContainer(blackhole));
+  }
+
+  @Benchmark
+  @BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+  public com.fredhopper.lifecycle.State startStop(Blackhole blackhole) throws Exception {
+    Container container = newContainer(blackhole);
+    container.initLifeCycle();
+    container.startLifeCycle();
+    container.stopLifeCycle();
+    return container.getState();
+  }
+
+  private Container newContainer(Blackhole blackhole) {
+    NoopLifeCycle lifeCycle = new NoopLifeCycle();
+    if (executor != null) {
+      return new Container(lifeCycle, executor, false);
+    }
+    if ("eager".equals(mode)) {
+      blackhole.consume(new Thread(() -> {}, "bootstrap-" + lifeCycle));
+      blackhole.consume(new Thread(() -> {}, "shutdownstrap-" + lifeCycle));
+    }
+    return new Container(lifeCycle, true, false);
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of the {@link LifeCycleMetrics} instrumentation on a
+ * cycle of initialization, start and stop with a listener:
+ * <ul>
+ * <li><code>disabled</code>: {@link LifeCycleMetrics#NOOP}.
+ * <li><code>jmx</code>: {@link JmxLifeCycleMetrics}.
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+  @Param({"disabled", "jmx"})
+  public String metrics;
+
+  private final NoopLifeCycle lifeCycle = new NoopLifeCycle();
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    AbstractLifeCycle.setMetrics("jmx".equals(metrics) ? new JmxLifeCycleMetrics() : null);
+    lifeCycle.addStateListener((from, to) -> blackhole.consume(to));
+  }
+
+  @TearDown
+  public void tearDown() {
+    final LifeCycleMetrics installed = AbstractLifeCycle.getMetrics();
+    if (installed instanceof JmxLifeCycleMetrics) {
+      ((JmxLifeCycleMetrics) installed).unregister(lifeCycle);
+    }
+    AbstractLifeCycle.setMetrics(null);
+  }
+
+  @Benchmark
+  public void cycle() throws Exception {
+    lifeCycle.initLifeCycle();
+    lifeCycle.startLifeCycle();
+    lifeCycle.stopLifeCycle();
+  }
+
+}
@@ -0,0 +1,17 @@
+package com.fredhopper.lifecycle;
+
+/**
+ * A {@link LifeCycle} without any work in its stages.
+ */
+class NoopLifeCycle extends AbstractLifeCycle {
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {}
+
+  @Override
+  protected void doStartLifeCycle() throws Exception {}
+
+  @Override
+  protected void doStopLifeCycle() throws Exception {}
+
+}
@@ -0,0 +1,85 @@
+package com.fredhopper.lifecycle;
+
+import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Throughput of {@link AbstractLifeCycle#publishState} when
+ * many threads publish through the same listeners:
+ * <ul>
+ * <li><code>registry</code>: the lock-free
+ * {@link StateListenerRegistry} snapshot.
+ * <li><code>synchronized</code>: the previous behavior that
+ * iterated a {@link CopyOnWriteArrayList} while holding its
+ * monitor.
+ * </ul>
+ * The benchmark runs on 4 threads by default; vary them with
+ * <code>-t</code> or <code>BenchmarkRunner -t 1,4,16</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class PublishStateBenchmark {
+
+  static final class SynchronizedLifeCycle extends NoopLifeCycle {
+
+    private final Collection<StateListener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public Collection<StateListener> getStateListeners() {
+      return this.listeners;
+    }
+
+    @Override
+    protected void publishState(com.fredhopper.lifecycle.State from,
+        com.fredhopper.lifecycle.State to) throws Exception {
+      synchronized (this.listeners) {
+        for (StateListener listener : this.listeners) {
+          listener.stateChanged(from, to);
+        }
+      }
+    }
+  }
+
+  @Param({"registry", "synchronized"})
+  public String registry;
+
+  @Param({"1", "8", "64"})
+  public int listeners;
+
+  private AbstractLifeCycle lifeCycle;
+
+  @Setup
+  public void setUp(Blackhole blackhole) {
+    lifeCycle = "registry".equals(registry) ? new NoopLifeCycle() : new SynchronizedLifeCycle();
+    for (int i = 0; i < listeners; i++) {
+      lifeCycle.getStateListeners().add((from, to) -> blackhole.consume(to));
+    }
+  }
+
+  @Benchmark
+  public void publishState() throws Exception {
+    lifeCycle.publishState(com.fredhopper.lifecycle.State.RUNNING,
+        com.fredhopper.lifecycle.State.PAUSED);
+  }
+
+}
@@ -1,12 +1,11 @@
 package com.fredhopper.environment;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.Formatter;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
@@ -32,10 +31,28 @@ public interface Environment {
   /**
    * A Java {@link Properties} file that can be used to define
    * an {@link Environment} instance with system property
-   * {@value}.
+   * {@value}. The value can also be a list of files,
+   * directories and globs such as
+   * <code>conf/base.properties:conf.d/*.properties</code>
+   * separated by {@link java.io.File#pathSeparator}; the files
+   * are parsed in parallel and a later file overrides an earlier
+   * one. The files of a directory or a glob are sorted by their
+   * path.
    */
   String ENVIRONMENT_FILE = "environment.file";
 
+  /**
+   * A file to cache the parsed {@link #ENVIRONMENT_FILE} in with
+   * system property {@value}. The cache is a binary snapshot
+   * that is read instead of parsing the environment file as
+   * long as the last modified time, the size and the checksum of
+   * the environment file do not change; otherwise, it is written
+   * again. If {@link #ENVIRONMENT_FILE} is a list of files, the
+   * snapshot of every file is suffixed with its index in the
+   * list, e.g. <code>env.snapshot.0</code>.
+   */
+  String ENVIRONMENT_SNAPSHOT = "environment.snapshot";
+
   /**
    * The name that is given to the environment instance; e.g.
    * <code>development</code>, <code>test</code>,
@@ -230,6 +247,102 @@ public interface Environment {
    */
   String getValue(String key, Supplier<String> supplier);
 
+  /**
+   * The value of a key as an <code>int</code>.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   * @throws IllegalArgumentException if the value cannot be
+   *         parsed
+   */
+  default int getInt(String key, int defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (Integer) ValueType.INT.parse(key, value);
+  }
+
+  /**
+   * The value of a key as a <code>long</code>.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   * @throws IllegalArgumentException if the value cannot be
+   *         parsed
+   */
+  default long getLong(String key, long defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (Long) ValueType.LONG.parse(key, value);
+  }
+
+  /**
+   * The value of a key as a <code>boolean</code>; either
+   * <code>true</code> or <code>false</code> ignoring the case.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   * @throws IllegalArgumentException if the value cannot be
+   *         parsed
+   */
+  default boolean getBoolean(String key, boolean defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (Boolean) ValueType.BOOLEAN.parse(key, value);
+  }
+
+  /**
+   * The value of a key as a {@link Duration}; either an ISO-8601
+   * duration such as <code>PT30S</code> or a number with an
+   * optional unit such as <code>500ms</code>, <code>30s</code>,
+   * <code>5m</code>, <code>2h</code> or <code>1d</code>. A
+   * number without a unit is in milli-seconds.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   * @throws IllegalArgumentException if the value cannot be
+   *         parsed
+   */
+  default Duration getDuration(String key, Duration defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (Duration) ValueType.DURATION.parse(key, value);
+  }
+
+  /**
+   * The value of a key as a {@link Path}.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   * @throws IllegalArgumentException if the value is not a
+   *         valid path
+   */
+  default Path getPath(String key, Path defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (Path) ValueType.PATH.parse(key, value);
+  }
+
+  /**
+   * The value of a key as an immutable list of comma-separated
+   * elements. The elements are trimmed and the empty elements
+   * are ignored.
+   *
+   * @param key the environment key
+   * @param defaultValue the value if there is no value for the
+   *        key
+   * @return the parsed value or <code>defaultValue</code>
+   */
+  @SuppressWarnings("unchecked")
+  default List<String> getList(String key, List<String> defaultValue) {
+    final String value = getValue(key);
+    return value == null ? defaultValue : (List<String>) ValueType.LIST.parse(key, value);
+  }
+
   /**
    * <p>
    * Method for returning a {@link Map} representation of this
@@ -245,6 +358,62 @@ public interface Environment {
    */
   Map<String, String> asMap();
 
+  /**
+   * Derives a child environment with a set of values that
+   * override the values of this environment. The child reads
+   * through to this environment for all the other keys; e.g.
+   * to create many tenant environments on top of the same base
+   * environment without copying it.
+   *
+   * @param overrides the values that override the values of
+   *        this environment
+   * @return the child {@link Environment}
+   */
+  default Environment withOverrides(Map<String, String> overrides) {
+    return new KeyValueEnvironment(LayeredMap.of(FrozenStringMap.copyOf(overrides), asMap()));
+  }
+
+  /**
+   * A view of the keys that start with a prefix, e.g.
+   * <code>myapp.server.</code>, with the prefix stripped; e.g.
+   * <code>getSubEnvironment("myapp.server.").getInt("port", 80)</code>
+   * reads <code>myapp.server.port</code>. The derived values such
+   * as {@link #getApplicationName()} of the view are resolved
+   * from the stripped keys as well. This implementation scans
+   * {@link #asMap()} and copies the matches.
+   *
+   * @param prefix the prefix of the keys
+   * @return the scoped {@link Environment}
+   */
+  default Environment getSubEnvironment(String prefix) {
+    final Map<String, String> scoped = new HashMap<>();
+    for (Map.Entry<String, String> entry : asMap().entrySet()) {
+      if (entry.getKey().startsWith(prefix)) {
+        scoped.put(entry.getKey().substring(prefix.length()), entry.getValue());
+      }
+    }
+    return new KeyValueEnvironment(scoped);
+  }
+
+  /**
+   * Derives an environment that expands the placeholders in the
+   * values of this environment: <code>${key}</code> is replaced
+   * with the value of <code>key</code> and
+   * <code>${key:-default}</code> falls back to
+   * <code>default</code> if <code>key</code> has no value; e.g.
+   * <code>${application.name}.root</code>. A placeholder that
+   * cannot be resolved is kept as is. The values are compiled
+   * once and the expanded values are cached; the derived
+   * environment is a snapshot of this environment.
+   *
+   * @return the interpolated {@link Environment}
+   * @throws IllegalArgumentException if the values reference
+   *         each other in a cycle
+   */
+  default Environment interpolated() {
+    return new KeyValueEnvironment(new InterpolatingMap(asMap()));
+  }
+
   /**
    * The value of {@link #SERVER_SHUTDOWN_TOKEN_KEY} in the
    * created environment.
@@ -323,25 +492,54 @@ public interface Environment {
    * @return the created {@link Environment} instance.
    */
   static Environment createEnvironment(Map<String, String> environment) {
-    final Map<String, String> env = new HashMap<>();
-    env.putAll(environment);
-    env.putAll(new HashMap<String, String>(System.getenv()));
-    final Properties systemProperties = System.getProperties();
-    systemProperties.stringPropertyNames()
-        .forEach(p -> env.put(p, systemProperties.getProperty(p)));
-    final String environmentFilePath = systemProperties.getProperty(ENVIRONMENT_FILE, null);
-    final Properties environmentFileProperties = new Properties();
-    if (environmentFilePath != null && Files.isReadable(Paths.get(environmentFilePath))) {
-      try (InputStream is = Files.newInputStream(Paths.get(environmentFilePath))) {
-        environmentFileProperties.load(is);
-      } catch (IOException e) {
-        throw new IllegalArgumentException("Cannot load environment from " + environmentFilePath,
-            e);
-      }
-    }
-    environmentFileProperties.stringPropertyNames()
-        .forEach(p -> env.put(p, environmentFileProperties.getProperty(p)));
-    return new KeyValueEnvironment(env);
+    return new KeyValueEnvironment(EnvironmentLoader.load(environment));
+  }
+
+  /**
+   * Creates an environment that reads through its sources
+   * instead of copying them. The sources are looked up in the
+   * order of precedence:
+   * <ul>
+   * <li>the overrides
+   * <li>the file that {@link #ENVIRONMENT_FILE} points to
+   * <li>{@link System#getProperties()}
+   * <li>{@link System#getenv()}
+   * <li>the defaults
+   * </ul>
+   * The changes of the sources after creation, except the
+   * environment file, are visible through all the accessors,
+   * such as {@link #getValue(String)},
+   * {@link #getInt(String, int)}, {@link #getServerPort()} and
+   * {@link #asMap()}; the values are therefore resolved and
+   * parsed at every call.
+   *
+   * @param defaults the default values
+   * @param overrides the values that override all the other
+   *        sources
+   * @return the created {@link Environment} instance
+   * @see #createLayeredEnvironment(Map, Map, boolean)
+   */
+  static Environment createLayeredEnvironment(Map<String, String> defaults,
+      Map<String, String> overrides) {
+    return createLayeredEnvironment(defaults, overrides, false);
+  }
+
+  /**
+   * Creates an environment that reads through its sources
+   * instead of copying them.
+   *
+   * @param defaults the default values
+   * @param overrides the values that override all the other
+   *        sources
+   * @param cached if <code>true</code>, the value of a key is
+   *        resolved through the sources once and then cached;
+   *        the later changes of the sources are not visible.
+   * @return the created {@link Environment} instance
+   * @see #createLayeredEnvironment(Map, Map)
+   */
+  static Environment createLayeredEnvironment(Map<String, String> defaults,
+      Map<String, String> overrides, boolean cached) {
+    return new KeyValueEnvironment(EnvironmentLoader.layers(defaults, overrides, cached));
   }
 
 }
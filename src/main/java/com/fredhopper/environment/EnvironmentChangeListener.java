@@ -0,0 +1,27 @@
+package com.fredhopper.environment;
+
+import java.util.EventListener;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * An event listener for the changes of a
+ * {@link ReloadingEnvironment}.
+ */
+@FunctionalInterface
+public interface EnvironmentChangeListener extends EventListener {
+
+  /**
+   * Publishes a change of the environment to the listener
+   * implementation.
+   *
+   * @param environment the environment effective now
+   * @param previous the key-value pairs of the previous
+   *        environment
+   * @param changedKeys the keys that are added, removed or
+   *        changed of value since the previous environment
+   */
+  void environmentChanged(Environment environment, Map<String, String> previous,
+      Set<String> changedKeys);
+
+}
@@ -0,0 +1,334 @@
+package com.fredhopper.environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Collects the key-value pairs of an {@link Environment} from
+ * its sources.
+ *
+ * @see Environment#createEnvironment(Map)
+ */
+final class EnvironmentLoader {
+
+  /**
+   * The characters that make an element of
+   * {@link Environment#ENVIRONMENT_FILE} a glob.
+   */
+  private static final Pattern GLOB = Pattern.compile("[*?\\[{]");
+
+  private EnvironmentLoader() {}
+
+  /**
+   * @param path a path
+   * @return <code>true</code> if the path contains glob
+   *         characters
+   */
+  static boolean isGlob(String path) {
+    return GLOB.matcher(path).find();
+  }
+
+  /**
+   * Collects the environment from the defaults,
+   * {@link System#getenv()}, {@link System#getProperties()} and
+   * the files that {@link Environment#ENVIRONMENT_FILE} points
+   * to in the order of overriding.
+   *
+   * @param defaults the default values
+   * @return the collected environment
+   * @throws IllegalArgumentException if an environment file
+   *         cannot be loaded
+   */
+  static Map<String, String> load(Map<String, String> defaults) {
+    final Map<String, String> env = base(defaults);
+    env.putAll(loadFiles(environmentFiles()));
+    return env;
+  }
+
+  /**
+   * Collects the environment from the defaults,
+   * {@link System#getenv()}, {@link System#getProperties()} and
+   * a file in the order of overriding.
+   *
+   * @param defaults the default values
+   * @param environmentFile the environment file; ignored if
+   *        <code>null</code> or not readable
+   * @return the collected environment
+   * @throws IllegalArgumentException if the environment file
+   *         cannot be loaded
+   */
+  static Map<String, String> load(Map<String, String> defaults, Path environmentFile) {
+    final Map<String, String> env = base(defaults);
+    if (environmentFile != null && Files.isReadable(environmentFile)) {
+      env.putAll(loadFile(environmentFile));
+    }
+    return env;
+  }
+
+  /**
+   * Composes the environment from read-through layers without
+   * copying them: the overrides, the files that
+   * {@link Environment#ENVIRONMENT_FILE} points to,
+   * {@link System#getProperties()}, {@link System#getenv()} and
+   * the defaults in the order of precedence.
+   *
+   * @param defaults the default values
+   * @param overrides the values that override all the other
+   *        layers
+   * @param cached if <code>true</code>, the resolved values are
+   *        cached per key
+   * @return the layered view of the environment
+   * @throws IllegalArgumentException if an environment file
+   *         cannot be loaded
+   */
+  static LayeredMap layers(Map<String, String> defaults, Map<String, String> overrides,
+      boolean cached) {
+    final List<Path> files = environmentFiles();
+    final Map<String, String> file =
+        files.isEmpty() ? Collections.emptyMap() : FrozenStringMap.copyOf(loadFiles(files));
+    return new LayeredMap(Arrays.asList(overrides, file, new PropertiesMap(System.getProperties()),
+        System.getenv(), defaults), cached);
+  }
+
+  /**
+   * Resolves the value of {@link Environment#ENVIRONMENT_FILE}:
+   * a list of files, directories and globs separated by
+   * {@link File#pathSeparator}. A directory stands for its
+   * regular files that are not hidden and a glob such as
+   * <code>/etc/app/conf.d/*.properties</code> for the regular
+   * files that match it and are not hidden; both are sorted by
+   * their path. The files that are not readable are ignored. A
+   * value or an element that exists as a file is taken
+   * literally even if it contains a separator or glob
+   * characters.
+   *
+   * @return the environment files in the order of overriding
+   * @throws IllegalArgumentException if a directory cannot be
+   *         listed
+   */
+  static List<Path> environmentFiles() {
+    final String environmentFilePath =
+        System.getProperty(Environment.ENVIRONMENT_FILE, null);
+    if (environmentFilePath == null) {
+      return Collections.emptyList();
+    }
+    final List<String> elements = existing(environmentFilePath) != null
+        ? Collections.singletonList(environmentFilePath)
+        : Arrays.asList(environmentFilePath.split(Pattern.quote(File.pathSeparator)));
+    final List<Path> files = new ArrayList<>();
+    for (String element : elements) {
+      if (element.trim().isEmpty()) {
+        continue;
+      }
+      try {
+        files.addAll(resolve(element.trim()));
+      } catch (IOException | UncheckedIOException e) {
+        throw new IllegalArgumentException("Cannot list environment files of " + element, e);
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Loads environment files in parallel on the common fork-join
+   * pool and merges them in order: a later file overrides an
+   * earlier one.
+   *
+   * @param environmentFiles the environment files in the order
+   *        of overriding
+   * @return the merged key-value pairs of the files
+   * @throws IllegalArgumentException if a file cannot be loaded;
+   *         the first such file in order is reported
+   */
+  static Map<String, String> loadFiles(List<Path> environmentFiles) {
+    if (environmentFiles.size() == 1) {
+      return loadFile(environmentFiles.get(0));
+    }
+    final String snapshotPath = System.getProperty(Environment.ENVIRONMENT_SNAPSHOT, null);
+    // Either the key-value pairs or the failure of every file
+    final List<Object> results =
+        IntStream.range(0, environmentFiles.size()).parallel().mapToObj(i -> {
+          try {
+            return (Object) loadFile(environmentFiles.get(i),
+                snapshotPath == null ? null : Paths.get(snapshotPath + "." + i));
+          } catch (RuntimeException e) {
+            return e;
+          }
+        }).collect(Collectors.toList());
+    final Map<String, String> env = new HashMap<>();
+    for (Object result : results) {
+      if (result instanceof RuntimeException) {
+        throw (RuntimeException) result;
+      }
+      @SuppressWarnings("unchecked")
+      final Map<String, String> file = (Map<String, String>) result;
+      env.putAll(file);
+    }
+    return env;
+  }
+
+  /**
+   * Loads an environment file in the {@link Properties} format
+   * through a memory-mapped {@link PropertiesParser}. If
+   * {@link Environment#ENVIRONMENT_SNAPSHOT} is set, the file is
+   * loaded through its snapshot.
+   *
+   * @param environmentFile the environment file
+   * @return the key-value pairs of the file
+   * @throws IllegalArgumentException if an {@link IOException}
+   *         occurs or the file is malformed
+   */
+  static Map<String, String> loadFile(Path environmentFile) {
+    final String snapshotPath = System.getProperty(Environment.ENVIRONMENT_SNAPSHOT, null);
+    return loadFile(environmentFile, snapshotPath == null ? null : Paths.get(snapshotPath));
+  }
+
+  /**
+   * Parses the content of an environment file in the
+   * {@link Properties} format.
+   *
+   * @param content the content of the file
+   * @param environmentFile the environment file
+   * @return the key-value pairs of the content
+   * @throws IllegalArgumentException if the content is
+   *         malformed
+   */
+  static Map<String, String> parse(byte[] content, Path environmentFile) {
+    try {
+      return PropertiesParser.parse(ByteBuffer.wrap(content));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Cannot load environment from " + environmentFile, e);
+    }
+  }
+
+  /**
+   * @param environmentFile the environment file
+   * @param snapshot the snapshot of the file or
+   *        <code>null</code>
+   * @return the key-value pairs of the file
+   * @throws IllegalArgumentException if an {@link IOException}
+   *         occurs or the file is malformed
+   */
+  private static Map<String, String> loadFile(Path environmentFile, Path snapshot) {
+    if (snapshot != null) {
+      return EnvironmentSnapshot.load(snapshot, environmentFile);
+    }
+    try {
+      return PropertiesParser.parse(environmentFile);
+    } catch (IOException | IllegalArgumentException e) {
+      throw new IllegalArgumentException("Cannot load environment from " + environmentFile, e);
+    }
+  }
+
+  /**
+   * @param defaults the default values
+   * @return a copy of the defaults overridden by
+   *         {@link System#getenv()} and
+   *         {@link System#getProperties()}
+   */
+  private static Map<String, String> base(Map<String, String> defaults) {
+    final Map<String, String> env = new HashMap<>();
+    env.putAll(defaults);
+    env.putAll(System.getenv());
+    final Properties systemProperties = System.getProperties();
+    systemProperties.stringPropertyNames()
+        .forEach(p -> env.put(p, systemProperties.getProperty(p)));
+    return env;
+  }
+
+  /**
+   * @param element a file, a directory or a glob
+   * @return the readable regular files of <code>element</code>
+   * @throws IOException if a directory cannot be listed
+   */
+  private static List<Path> resolve(String element) throws IOException {
+    final Matcher glob = GLOB.matcher(element);
+    final Path literal = existing(element);
+    if (literal != null || !glob.find()) {
+      final Path path = literal != null ? literal : Paths.get(element);
+      if (!Files.isDirectory(path)) {
+        return Files.isReadable(path) ? Collections.singletonList(path) : Collections.emptyList();
+      }
+      final List<Path> files = new ArrayList<>();
+      try (DirectoryStream<Path> directory = Files.newDirectoryStream(path)) {
+        for (Path file : directory) {
+          if (isEnvironmentFile(file) && !isHidden(file.getFileName())) {
+            files.add(file);
+          }
+        }
+      }
+      Collections.sort(files);
+      return files;
+    }
+    // The glob is matched relative to its longest directory without glob characters
+    final int separator = Math.max(element.lastIndexOf('/', glob.start()),
+        element.lastIndexOf(File.separatorChar, glob.start()));
+    final Path base = Paths.get(separator < 0 ? "." : element.substring(0, separator + 1));
+    final String pattern = element.substring(separator + 1);
+    if (!Files.isDirectory(base)) {
+      return Collections.emptyList();
+    }
+    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    final int depth = pattern.contains("**") ? Integer.MAX_VALUE
+        : Paths.get(pattern.replaceAll("[*?\\[\\]{}]", "_")).getNameCount();
+    try (Stream<Path> paths = Files.walk(base, depth)) {
+      return paths.filter(p -> {
+        final Path relative = base.relativize(p);
+        return matcher.matches(relative) && !isHidden(relative) && isEnvironmentFile(p);
+      }).sorted().collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * @param path a path
+   * @return the path if it exists or <code>null</code>
+   */
+  private static Path existing(String path) {
+    try {
+      final Path literal = Paths.get(path);
+      return Files.exists(literal) ? literal : null;
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  /**
+   * @param relative a relative path
+   * @return <code>true</code> if an element of the path is
+   *         hidden
+   */
+  private static boolean isHidden(Path relative) {
+    for (Path name : relative) {
+      if (name.toString().startsWith(".")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean isEnvironmentFile(Path file) {
+    return Files.isRegularFile(file) && Files.isReadable(file);
+  }
+
+}
@@ -0,0 +1,181 @@
+package com.fredhopper.environment;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A binary snapshot of the parsed key-value pairs of an
+ * environment file. A snapshot records the absolute path, the
+ * last modified time, the size and the CRC-32 of the file it was
+ * parsed from; it is read through a memory-mapped buffer and is
+ * used only if the file still matches all of them.
+ * <p>
+ * The format is the magic number, the version, the fingerprint
+ * of the file, the number of entries and then the key-value
+ * pairs as length-prefixed UTF-8 strings.
+ *
+ * @see Environment#ENVIRONMENT_SNAPSHOT
+ */
+final class EnvironmentSnapshot {
+
+  private static final int MAGIC = 0x454e5653;
+  private static final int VERSION = 1;
+
+  private EnvironmentSnapshot() {}
+
+  /**
+   * Loads an environment file through a snapshot. If the
+   * snapshot is missing or stale, the file is parsed and the
+   * snapshot is written again.
+   *
+   * @param snapshot the snapshot file
+   * @param source the environment file
+   * @return the key-value pairs of the environment file
+   * @throws IllegalArgumentException if the environment file
+   *         cannot be loaded
+   */
+  static Map<String, String> load(Path snapshot, Path source) {
+    final Map<String, String> env = read(snapshot, source);
+    if (env != null) {
+      return env;
+    }
+    final BasicFileAttributes attributes;
+    final byte[] content;
+    try {
+      attributes = Files.readAttributes(source, BasicFileAttributes.class);
+      content = Files.readAllBytes(source);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Cannot load environment from " + source, e);
+    }
+    final FrozenStringMap parsed = FrozenStringMap.copyOf(EnvironmentLoader.parse(content, source));
+    final CRC32 crc = new CRC32();
+    crc.update(content);
+    try {
+      write(snapshot, source, attributes, (int) crc.getValue(), parsed);
+    } catch (IOException e) {
+      // The snapshot is only a cache; the next load parses again
+    }
+    return parsed;
+  }
+
+  /**
+   * @param snapshot the snapshot file
+   * @param source the environment file
+   * @return the key-value pairs of the snapshot or
+   *         <code>null</code> if the snapshot is missing, stale or
+   *         corrupt
+   */
+  static Map<String, String> read(Path snapshot, Path source) {
+    if (!Files.isReadable(snapshot)) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+          || !source.toAbsolutePath().toString().equals(readString(buffer))) {
+        return null;
+      }
+      final BasicFileAttributes attributes =
+          Files.readAttributes(source, BasicFileAttributes.class);
+      if (buffer.getLong() != attributes.lastModifiedTime().toMillis()
+          || buffer.getLong() != attributes.size() || buffer.getInt() != crc(source)) {
+        return null;
+      }
+      final int count = buffer.getInt();
+      // Every entry takes at least the lengths of its key and value
+      if (count < 0 || count > buffer.remaining() / (2 * Integer.BYTES)) {
+        throw new IOException("Invalid entry count in " + snapshot + ": " + count);
+      }
+      final String[] keys = new String[count];
+      final String[] values = new String[count];
+      for (int i = 0; i < count; i++) {
+        keys[i] = readString(buffer);
+        values[i] = readString(buffer);
+      }
+      return FrozenStringMap.of(keys, values, count);
+    } catch (IOException | RuntimeException e) {
+      // A snapshot that cannot be read is stale
+      return null;
+    }
+  }
+
+  /**
+   * Writes a snapshot to a temporary file and moves it in place.
+   *
+   * @param snapshot the snapshot file
+   * @param source the environment file
+   * @param attributes the attributes of <code>source</code>
+   *        when it was read
+   * @param crc the CRC-32 of the content of <code>source</code>
+   * @param env the parsed key-value pairs of <code>source</code>
+   * @throws IOException if the snapshot cannot be written
+   */
+  static void write(Path snapshot, Path source, BasicFileAttributes attributes, int crc,
+      Map<String, String> env) throws IOException {
+    final Path directory = snapshot.toAbsolutePath().getParent();
+    Files.createDirectories(directory);
+    final Path temporary =
+        Files.createTempFile(directory, snapshot.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        writeString(out, source.toAbsolutePath().toString());
+        out.writeLong(attributes.lastModifiedTime().toMillis());
+        out.writeLong(attributes.size());
+        out.writeInt(crc);
+        out.writeInt(env.size());
+        for (Map.Entry<String, String> entry : env.entrySet()) {
+          writeString(out, entry.getKey());
+          writeString(out, entry.getValue());
+        }
+      }
+      Files.move(temporary, snapshot, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /**
+   * @param file a file
+   * @return the CRC-32 of the content of the file
+   * @throws IOException if the file cannot be read
+   */
+  private static int crc(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final CRC32 crc = new CRC32();
+      crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      return (int) crc.getValue();
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) throws IOException {
+    final int length = buffer.getInt();
+    if (length < 0 || length > buffer.remaining()) {
+      throw new IOException("Invalid string length in snapshot: " + length);
+    }
+    final byte[] bytes = new byte[length];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+}
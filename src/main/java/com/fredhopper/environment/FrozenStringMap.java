@@ -0,0 +1,198 @@
+package com.fredhopper.environment;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable {@link Map} of {@link String} keys and values
+ * that is built once and then only read. The entries are stored
+ * with open addressing and linear probing in arrays of keys,
+ * values and precomputed hashes; there is no node object per
+ * entry and a lookup compares the hashes before it touches a
+ * key.
+ */
+final class FrozenStringMap extends AbstractMap<String, String> {
+
+  private static final FrozenStringMap EMPTY = new FrozenStringMap(new String[2], new String[2],
+      new int[2], 0);
+
+  private final String[] keys;
+  private final String[] values;
+  private final int[] hashes;
+  private final int mask;
+  private final int size;
+  private final Set<Entry<String, String>> entrySet = new EntrySet();
+
+  private FrozenStringMap(String[] keys, String[] values, int[] hashes, int size) {
+    this.keys = keys;
+    this.values = values;
+    this.hashes = hashes;
+    this.mask = keys.length - 1;
+    this.size = size;
+  }
+
+  /**
+   * Copies a map. The entries with a <code>null</code> key or
+   * value are ignored.
+   *
+   * @param map the map to copy
+   * @return the frozen copy of <code>map</code> or
+   *         <code>map</code> itself if it is already frozen
+   */
+  static FrozenStringMap copyOf(Map<String, String> map) {
+    if (map instanceof FrozenStringMap) {
+      return (FrozenStringMap) map;
+    }
+    if (map.isEmpty()) {
+      return EMPTY;
+    }
+    final String[] keys = new String[capacity(map.size())];
+    final String[] values = new String[keys.length];
+    final int[] hashes = new int[keys.length];
+    int size = 0;
+    for (Entry<String, String> entry : map.entrySet()) {
+      size += insert(keys, values, hashes, entry.getKey(), entry.getValue());
+    }
+    return new FrozenStringMap(keys, values, hashes, size);
+  }
+
+  /**
+   * Builds a map from parallel arrays of keys and values. The
+   * entries with a <code>null</code> key or value are ignored;
+   * a later key overrides an earlier one.
+   *
+   * @param keys the keys
+   * @param values the values of <code>keys</code>
+   * @param count the number of entries in the arrays
+   * @return the frozen map
+   */
+  static FrozenStringMap of(String[] keys, String[] values, int count) {
+    if (count == 0) {
+      return EMPTY;
+    }
+    final String[] tableKeys = new String[capacity(count)];
+    final String[] tableValues = new String[tableKeys.length];
+    final int[] hashes = new int[tableKeys.length];
+    int size = 0;
+    for (int i = 0; i < count; i++) {
+      size += insert(tableKeys, tableValues, hashes, keys[i], values[i]);
+    }
+    return new FrozenStringMap(tableKeys, tableValues, hashes, size);
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    final int hash = hash((String) key);
+    int i = hash & this.mask;
+    String k;
+    while ((k = this.keys[i]) != null) {
+      if (this.hashes[i] == hash && (k == key || k.equals(key))) {
+        return this.values[i];
+      }
+      i = (i + 1) & this.mask;
+    }
+    return null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return this.size;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return this.entrySet;
+  }
+
+  /**
+   * @param size the number of entries
+   * @return the power of two capacity for <code>size</code>
+   *         entries
+   */
+  private static int capacity(int size) {
+    // A load factor of at most 0.75 keeps the probe sequences short
+    return Integer.highestOneBit(size + size / 3) << 1;
+  }
+
+  /**
+   * Puts an entry in a table with linear probing.
+   *
+   * @return <code>1</code> if the key is new in the table;
+   *         otherwise <code>0</code>
+   */
+  private static int insert(String[] keys, String[] values, int[] hashes, String key,
+      String value) {
+    if (key == null || value == null) {
+      return 0;
+    }
+    final int mask = keys.length - 1;
+    final int hash = hash(key);
+    int i = hash & mask;
+    while (keys[i] != null && !(hashes[i] == hash && keys[i].equals(key))) {
+      i = (i + 1) & mask;
+    }
+    final int added = keys[i] == null ? 1 : 0;
+    keys[i] = key;
+    values[i] = value;
+    hashes[i] = hash;
+    return added;
+  }
+
+  private static int hash(String key) {
+    final int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      return new Iterator<Entry<String, String>>() {
+
+        private int next = advance(0);
+
+        @Override
+        public boolean hasNext() {
+          return this.next < keys.length;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final Entry<String, String> entry =
+              new SimpleImmutableEntry<>(keys[this.next], values[this.next]);
+          this.next = advance(this.next + 1);
+          return entry;
+        }
+
+        private int advance(int from) {
+          int i = from;
+          while (i < keys.length && keys[i] == null) {
+            i++;
+          }
+          return i;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return size;
+    }
+  }
+
+}
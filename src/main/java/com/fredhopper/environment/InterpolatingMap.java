@@ -0,0 +1,407 @@
+package com.fredhopper.environment;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable view of a snapshot of key-value pairs that
+ * expands the placeholders in the values: <code>${key}</code>
+ * is replaced with the expanded value of <code>key</code> and
+ * <code>${key:-default}</code> falls back to
+ * <code>default</code>, which may contain placeholders itself,
+ * if <code>key</code> has no value. A placeholder that cannot
+ * be resolved is kept as is.
+ * <p>
+ * The values are compiled into templates once, at
+ * construction, and the cyclic references are reported then.
+ * A value is expanded at its first lookup and cached; the
+ * source is copied, so a new view must be created for the
+ * changes of the source.
+ * <p>
+ * A view with overrides over a base view shares the base: it
+ * only compiles the overrides and only expands again the
+ * values that depend on an overridden key; all the other
+ * lookups are served by the base and its cache.
+ *
+ * @see Environment#interpolated()
+ */
+final class InterpolatingMap extends AbstractMap<String, String> {
+
+  private static final String PREFIX = "${";
+  private static final String SUFFIX = "}";
+  private static final String DEFAULT_SEPARATOR = ":-";
+
+  private final Map<String, String> source;
+  private final InterpolatingMap base;
+  private final Map<String, String> overrides;
+  private final Set<String> affected = new HashSet<>();
+  private final Map<String, Template> templates = new HashMap<>();
+  private final Map<String, List<String>> dependents = new HashMap<>();
+  private final ConcurrentMap<String, String> expanded = new ConcurrentHashMap<>();
+  private final Set<Entry<String, String>> entrySet = new EntrySet();
+
+  /**
+   * C'tor.
+   *
+   * @param source the key-value pairs with placeholders
+   * @throws IllegalArgumentException if the values reference
+   *         each other in a cycle
+   */
+  InterpolatingMap(Map<String, String> source) {
+    final FrozenStringMap frozen = FrozenStringMap.copyOf(source);
+    this.source = frozen;
+    this.base = null;
+    this.overrides = frozen;
+    compile(frozen);
+    checkCycles(this.templates.keySet());
+  }
+
+  /**
+   * C'tor of a view with overrides that shares the source, the
+   * templates and the expanded values of a base view.
+   *
+   * @param base the base view
+   * @param overrides the key-value pairs with placeholders that
+   *        override the base
+   * @throws IllegalArgumentException if the values reference
+   *         each other in a cycle through the overrides
+   */
+  InterpolatingMap(InterpolatingMap base, Map<String, String> overrides) {
+    final FrozenStringMap frozen = FrozenStringMap.copyOf(overrides);
+    final List<Map<String, String>> layers = new ArrayList<>();
+    layers.add(frozen);
+    if (base.source instanceof LayeredMap) {
+      layers.addAll(((LayeredMap) base.source).getLayers());
+    } else {
+      layers.add(base.source);
+    }
+    this.source = new LayeredMap(layers, false);
+    this.base = base;
+    this.overrides = frozen;
+    compile(frozen);
+    // The values of the base that reference an overridden key
+    // directly or transitively are expanded again
+    final Deque<String> pending = new ArrayDeque<>(frozen.keySet());
+    while (!pending.isEmpty()) {
+      for (String dependent : dependents(pending.pop())) {
+        if (!frozen.containsKey(dependent) && this.affected.add(dependent)) {
+          pending.push(dependent);
+        }
+      }
+    }
+    // The base has no cycle: a new cycle goes through an override
+    checkCycles(this.templates.keySet());
+  }
+
+  /**
+   * @return the key-value pairs before the expansion
+   */
+  Map<String, String> getSource() {
+    return this.source;
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    if (this.base != null && !this.overrides.containsKey(key) && !this.affected.contains(key)) {
+      return this.base.get(key);
+    }
+    final Template template = template((String) key);
+    if (template == null) {
+      return this.source.get(key);
+    }
+    String value = this.expanded.get(key);
+    if (value == null) {
+      value = template.expand(this);
+      this.expanded.putIfAbsent((String) key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return this.source.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return this.source.size();
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return this.entrySet;
+  }
+
+  /**
+   * @return the number of the templates compiled by this view
+   */
+  int getCompiledTemplates() {
+    return this.templates.size();
+  }
+
+  /**
+   * Compiles the values with placeholders of this view and
+   * indexes their references.
+   */
+  private void compile(Map<String, String> values) {
+    for (Entry<String, String> entry : values.entrySet()) {
+      if (entry.getValue().contains(PREFIX)) {
+        final Template template = Template.compile(entry.getValue());
+        this.templates.put(entry.getKey(), template);
+        for (String reference : template.references()) {
+          this.dependents.computeIfAbsent(reference, r -> new ArrayList<>()).add(entry.getKey());
+        }
+      }
+    }
+  }
+
+  /**
+   * @param key a key
+   * @return the compiled value of the key or <code>null</code>
+   *         if it has no placeholder
+   */
+  private Template template(String key) {
+    if (this.base == null || this.overrides.containsKey(key)) {
+      return this.templates.get(key);
+    }
+    return this.base.template(key);
+  }
+
+  /**
+   * @param reference a referenced key
+   * @return the keys whose values reference the key
+   */
+  private List<String> dependents(String reference) {
+    final List<String> own = this.dependents.getOrDefault(reference, new ArrayList<>());
+    if (this.base == null) {
+      return own;
+    }
+    final List<String> all = new ArrayList<>(own);
+    for (String dependent : this.base.dependents(reference)) {
+      if (!this.overrides.containsKey(dependent)) {
+        all.add(dependent);
+      }
+    }
+    return all;
+  }
+
+  /**
+   * Walks the references between the templates depth-first.
+   *
+   * @param keys the keys to start from
+   * @throws IllegalArgumentException at the first cycle
+   */
+  private void checkCycles(Set<String> keys) {
+    final Set<String> done = new HashSet<>();
+    for (String key : keys) {
+      checkCycles(key, new ArrayDeque<>(), done);
+    }
+  }
+
+  private void checkCycles(String key, Deque<String> path, Set<String> done) {
+    if (done.contains(key)) {
+      return;
+    }
+    if (path.contains(key)) {
+      final List<String> cycle = new ArrayList<>();
+      for (Iterator<String> it = path.descendingIterator(); it.hasNext();) {
+        final String k = it.next();
+        if (!cycle.isEmpty() || k.equals(key)) {
+          cycle.add(k);
+        }
+      }
+      cycle.add(key);
+      throw new IllegalArgumentException(
+          "Cyclic reference in environment values: " + String.join(" -> ", cycle));
+    }
+    final Template template = template(key);
+    if (template != null) {
+      path.push(key);
+      for (String reference : template.references()) {
+        checkCycles(reference, path, done);
+      }
+      path.pop();
+    }
+    done.add(key);
+  }
+
+  /**
+   * A compiled value: a sequence of literal parts and
+   * placeholders.
+   */
+  private static final class Template {
+
+    /**
+     * Either a {@link String} or a {@link Placeholder}.
+     */
+    private final Object[] parts;
+
+    private Template(Object[] parts) {
+      this.parts = parts;
+    }
+
+    /**
+     * @param value a value with placeholders
+     * @return the compiled value
+     */
+    static Template compile(String value) {
+      final List<Object> parts = new ArrayList<>();
+      int start = 0;
+      int from = 0;
+      int open;
+      while ((open = value.indexOf(PREFIX, from)) >= 0) {
+        final int close = closingIndex(value, open + PREFIX.length());
+        if (close < 0) {
+          break;
+        }
+        if (open > start) {
+          parts.add(value.substring(start, open));
+        }
+        parts.add(Placeholder.compile(value.substring(open, close + SUFFIX.length())));
+        start = close + SUFFIX.length();
+        from = start;
+      }
+      if (start < value.length()) {
+        parts.add(value.substring(start));
+      }
+      return new Template(parts.toArray());
+    }
+
+    /**
+     * @param map the map to resolve the placeholders
+     * @return the expanded value
+     */
+    String expand(Map<String, String> map) {
+      final StringBuilder sb = new StringBuilder();
+      for (Object part : this.parts) {
+        if (part instanceof Placeholder) {
+          ((Placeholder) part).expand(map, sb);
+        } else {
+          sb.append((String) part);
+        }
+      }
+      return sb.toString();
+    }
+
+    /**
+     * @return the keys that the placeholders, including their
+     *         defaults, reference
+     */
+    List<String> references() {
+      final List<String> references = new ArrayList<>();
+      for (Object part : this.parts) {
+        if (part instanceof Placeholder) {
+          final Placeholder placeholder = (Placeholder) part;
+          references.add(placeholder.key);
+          if (placeholder.defaultValue != null) {
+            references.addAll(placeholder.defaultValue.references());
+          }
+        }
+      }
+      return references;
+    }
+
+    /**
+     * @param value the value
+     * @param from the index after the opening
+     *        {@link InterpolatingMap#PREFIX}
+     * @return the index of the matching
+     *         {@link InterpolatingMap#SUFFIX} or <code>-1</code>
+     */
+    private static int closingIndex(String value, int from) {
+      int depth = 1;
+      for (int i = from; i < value.length(); i++) {
+        if (value.startsWith(PREFIX, i)) {
+          depth++;
+          i += PREFIX.length() - 1;
+        } else if (value.startsWith(SUFFIX, i) && --depth == 0) {
+          return i;
+        }
+      }
+      return -1;
+    }
+  }
+
+  /**
+   * A compiled <code>${key}</code> or
+   * <code>${key:-default}</code>.
+   */
+  private static final class Placeholder {
+
+    private final String text;
+    private final String key;
+    private final Template defaultValue;
+
+    private Placeholder(String text, String key, Template defaultValue) {
+      this.text = text;
+      this.key = key;
+      this.defaultValue = defaultValue;
+    }
+
+    /**
+     * @param text the placeholder including its delimiters
+     * @return the compiled placeholder
+     */
+    static Placeholder compile(String text) {
+      final String body = text.substring(PREFIX.length(), text.length() - SUFFIX.length());
+      final int separator = body.indexOf(DEFAULT_SEPARATOR);
+      if (separator < 0) {
+        return new Placeholder(text, body.trim(), null);
+      }
+      return new Placeholder(text, body.substring(0, separator).trim(),
+          Template.compile(body.substring(separator + DEFAULT_SEPARATOR.length())));
+    }
+
+    void expand(Map<String, String> map, StringBuilder sb) {
+      final String value = map.get(this.key);
+      if (value != null) {
+        sb.append(value);
+      } else if (this.defaultValue != null) {
+        sb.append(this.defaultValue.expand(map));
+      } else {
+        sb.append(this.text);
+      }
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      final Iterator<Entry<String, String>> entries = source.entrySet().iterator();
+      return new Iterator<Entry<String, String>>() {
+
+        @Override
+        public boolean hasNext() {
+          return entries.hasNext();
+        }
+
+        @Override
+        public Entry<String, String> next() {
+          final String key = entries.next().getKey();
+          return new SimpleImmutableEntry<>(key, get(key));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return source.size();
+    }
+  }
+
+}
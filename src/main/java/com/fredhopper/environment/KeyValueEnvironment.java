@@ -2,15 +2,29 @@ package com.fredhopper.environment;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Collections;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Supplier;
 
 /**
  * An implementation of {@link Environment} using an instance of
- * {@link Map}. For all the {@link Path} values, this
+ * {@link Map}. The provided map is copied into a
+ * {@link FrozenStringMap} unless it is a read-through
+ * {@link LayeredMap}, an {@link InterpolatingMap} or a
+ * {@link PrefixMap}. For all the {@link Path} values, this
  * implementation does <i>not</i> provide any guarantee that
- * they exist or created.
+ * they exist or created. The results of the typed accessors
+ * such as {@link #getInt(String, int)} are parsed once per key
+ * and memoized and the derived values such as
+ * {@link #getServerPort()} are resolved once, unless the map is
+ * a live {@link LayeredMap} whose layers may change: then they
+ * are resolved from the map at every call.
  */
 final class KeyValueEnvironment implements Environment {
 
@@ -20,11 +34,57 @@ final class KeyValueEnvironment implements Environment {
    */
   private static final String DEFAULT_LOGS_DIRECTORY_NAME = "logs";
 
+  /**
+   * The memoized parse result of a key without value.
+   */
+  private static final Object MISSING = new Object();
+
+  /**
+   * The values derived from the map.
+   */
+  private static final class Derived {
+    private final String name;
+    private final Path applicationRoot;
+    private final Path applicationLogs;
+    private final String serverHost;
+    private final int serverPort;
+    private final boolean serverPortValid;
+
+    Derived(Map<String, String> environment, String applicationName) {
+      this.name = environment.getOrDefault(ENVIRONMENT_NAME, null);
+      final String envAppRoot = environment.getOrDefault(applicationName + ROOT_SUFFIX, null);
+      this.applicationRoot = envAppRoot == null ? null : Paths.get(envAppRoot).toAbsolutePath();
+      final String logsPath = environment.getOrDefault(applicationName + LOG_ROOT_SUFFIX, null);
+      this.applicationLogs = logsPath == null
+          ? this.applicationRoot == null ? null
+              : this.applicationRoot.resolve(DEFAULT_LOGS_DIRECTORY_NAME)
+          : Paths.get(logsPath).toAbsolutePath();
+      this.serverHost = environment.get(applicationName + SERVER_HOST_SUFFIX);
+      int port = -1;
+      boolean portValid = false;
+      try {
+        port = Integer.parseInt(environment.get(applicationName + SERVER_PORT_SUFFIX));
+        portValid = true;
+      } catch (NumberFormatException e) {
+        // Reported by getServerPort()
+      }
+      this.serverPort = port;
+      this.serverPortValid = portValid;
+    }
+  }
+
   private final Map<String, String> environment;
-  private final String name;
+  // null if the map is live and the values are derived at every call
+  private final Derived derived;
   private final String application;
-  private final Path applicationRoot;
-  private final Path applicationLogs;
+  private final String logFileName;
+  private final String rotatingLogFilePattern;
+  private final String accessLogFileName;
+  private final String rotatingAccessLogFileName;
+  private final String contextPath;
+  private final Map<ValueType, ConcurrentMap<String, Object>> parsedValues =
+      new EnumMap<>(ValueType.class);
+  private volatile String[] sortedKeys;
 
   /**
    * Ctor.
@@ -44,21 +104,26 @@ final class KeyValueEnvironment implements Environment {
    */
   public KeyValueEnvironment(Map<String, String> env, String applicationName) {
     this.application = applicationName;
-    this.environment = Collections.unmodifiableMap(env);
-    this.name = this.environment.getOrDefault(ENVIRONMENT_NAME, null);
-    final String envAppRoot = this.environment.getOrDefault(applicationName + ROOT_SUFFIX, null);
-    this.applicationRoot = envAppRoot == null ? null : Paths.get(envAppRoot).toAbsolutePath();
-    final String logsPath = this.environment.getOrDefault(applicationName + LOG_ROOT_SUFFIX, null);
-    this.applicationLogs = logsPath == null
-        ? this.applicationRoot == null ? null
-            : this.applicationRoot.resolve(DEFAULT_LOGS_DIRECTORY_NAME)
-        : Paths.get(logsPath).toAbsolutePath();
+    this.environment = env instanceof LayeredMap || env instanceof InterpolatingMap
+        || env instanceof PrefixMap ? env : FrozenStringMap.copyOf(env);
+    this.derived = isLive() ? null : new Derived(this.environment, applicationName);
+    this.logFileName = (applicationName + LOG_FILE_SUFFIX).intern();
+    this.rotatingLogFilePattern =
+        (applicationName + LOG_FILE_SUFFIX + LOG_FILE_ROTATE_PATTERN_SUFFIX).intern();
+    this.accessLogFileName = (applicationName + ACCESS_LOG_FILE_SUFFIX).intern();
+    this.rotatingAccessLogFileName =
+        (applicationName + ACCESS_LOG_FILE_SUFFIX + ACCESS_LOG_FILE_ROTATE_PATTERN).intern();
+    this.contextPath = ("/" + applicationName).intern();
+    for (ValueType type : ValueType.values()) {
+      this.parsedValues.put(type, new ConcurrentHashMap<>());
+    }
   }
 
   @Override
   public String getEnvironmentName() {
-    if (this.name != null) {
-      return this.name;
+    final String name = derived().name;
+    if (name != null) {
+      return name;
     }
     return Environment.super.getEnvironmentName();
   }
@@ -70,51 +135,52 @@ final class KeyValueEnvironment implements Environment {
 
   @Override
   public Path getApplicationRoot() {
-    return this.applicationRoot;
+    return derived().applicationRoot;
   }
 
   @Override
   public Path getApplicationLogsRoot() {
-    return this.applicationLogs;
+    return derived().applicationLogs;
   }
 
   @Override
   public String getLogFileName() {
-    return (this.application + LOG_FILE_SUFFIX).intern();
+    return this.logFileName;
   }
 
   @Override
   public String getRotatingLogFilePattern() {
-    return (this.application + LOG_FILE_SUFFIX + LOG_FILE_ROTATE_PATTERN_SUFFIX).intern();
+    return this.rotatingLogFilePattern;
   }
 
   @Override
   public String getAccessLogFileName() {
-    return (this.application + ACCESS_LOG_FILE_SUFFIX).intern();
+    return this.accessLogFileName;
   }
 
   @Override
   public String getRotatingAccessLogFileName() {
-    return (this.application + ACCESS_LOG_FILE_SUFFIX + ACCESS_LOG_FILE_ROTATE_PATTERN).intern();
+    return this.rotatingAccessLogFileName;
   }
 
   @Override
   public String getContextPath() {
-    return ("/" + application).intern();
+    return this.contextPath;
   }
 
   @Override
   public String getServerHost() {
-    return getValue(application + SERVER_HOST_SUFFIX);
+    return derived().serverHost;
   }
 
   @Override
   public int getServerPort() {
-    try {
-      return Integer.parseInt(getValue(application + SERVER_PORT_SUFFIX));
-    } catch (NumberFormatException e) {
-      throw e;
+    final Derived values = derived();
+    if (values.serverPortValid) {
+      return values.serverPort;
     }
+    // Parse again to report the failure
+    return Integer.parseInt(getValue(application + SERVER_PORT_SUFFIX));
   }
 
   @Override
@@ -126,6 +192,102 @@ final class KeyValueEnvironment implements Environment {
     return supplier.get();
   }
 
+  @Override
+  public int getInt(String key, int defaultValue) {
+    final Object value = parsedValue(key, ValueType.INT);
+    return value == MISSING ? defaultValue : (Integer) value;
+  }
+
+  @Override
+  public long getLong(String key, long defaultValue) {
+    final Object value = parsedValue(key, ValueType.LONG);
+    return value == MISSING ? defaultValue : (Long) value;
+  }
+
+  @Override
+  public boolean getBoolean(String key, boolean defaultValue) {
+    final Object value = parsedValue(key, ValueType.BOOLEAN);
+    return value == MISSING ? defaultValue : (Boolean) value;
+  }
+
+  @Override
+  public Duration getDuration(String key, Duration defaultValue) {
+    final Object value = parsedValue(key, ValueType.DURATION);
+    return value == MISSING ? defaultValue : (Duration) value;
+  }
+
+  @Override
+  public Path getPath(String key, Path defaultValue) {
+    final Object value = parsedValue(key, ValueType.PATH);
+    return value == MISSING ? defaultValue : (Path) value;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<String> getList(String key, List<String> defaultValue) {
+    final Object value = parsedValue(key, ValueType.LIST);
+    return value == MISSING ? defaultValue : (List<String>) value;
+  }
+
+  /**
+   * The child environment shares the storage of this
+   * environment: the overrides are copied into a new layer on
+   * top of the layers of this environment. An interpolated
+   * child also shares the compiled and expanded values of this
+   * environment; only the overrides and the values that depend
+   * on them are expanded again.
+   */
+  @Override
+  public Environment withOverrides(Map<String, String> overrides) {
+    if (this.environment instanceof InterpolatingMap) {
+      return new KeyValueEnvironment(
+          new InterpolatingMap((InterpolatingMap) this.environment, overrides));
+    }
+    final List<Map<String, String>> layers = new ArrayList<>();
+    layers.add(FrozenStringMap.copyOf(overrides));
+    if (this.environment instanceof LayeredMap && !((LayeredMap) this.environment).isCached()) {
+      layers.addAll(((LayeredMap) this.environment).getLayers());
+    } else {
+      layers.add(this.environment);
+    }
+    return new KeyValueEnvironment(new LayeredMap(layers, false));
+  }
+
+  /**
+   * The view reads through the storage of this environment: the
+   * keys are indexed in sorted order at the first call and the
+   * keys with the prefix are located with binary search. The
+   * keys of a read-through {@link LayeredMap} can change and are
+   * scanned and copied instead.
+   */
+  @Override
+  public Environment getSubEnvironment(String prefix) {
+    if (this.environment instanceof PrefixMap) {
+      return new KeyValueEnvironment(((PrefixMap) this.environment).subMap(prefix));
+    }
+    if (this.environment instanceof LayeredMap) {
+      return Environment.super.getSubEnvironment(prefix);
+    }
+    String[] keys = this.sortedKeys;
+    if (keys == null) {
+      // The keys of an interpolating map are read without expanding its values
+      keys = (this.environment instanceof InterpolatingMap
+          ? ((InterpolatingMap) this.environment).getSource() : this.environment).keySet()
+              .toArray(new String[0]);
+      Arrays.sort(keys);
+      this.sortedKeys = keys;
+    }
+    return new KeyValueEnvironment(new PrefixMap(this.environment, keys, prefix));
+  }
+
+  @Override
+  public Environment interpolated() {
+    if (this.environment instanceof InterpolatingMap) {
+      return this;
+    }
+    return Environment.super.interpolated();
+  }
+
   @Override
   public int hashCode() {
     return getId().hashCode();
@@ -138,11 +300,53 @@ final class KeyValueEnvironment implements Environment {
 
   /**
    * {@inheritDoc}
-   *
+   * <p>
+   * The returned map is immutable and is not copied.
    */
   @Override
   public Map<String, String> asMap() {
-    return Collections.unmodifiableMap(environment);
+    return environment;
+  }
+
+  /**
+   * @return <code>true</code> if the map is a {@link LayeredMap}
+   *         whose layers may change
+   */
+  private boolean isLive() {
+    return this.environment instanceof LayeredMap && ((LayeredMap) this.environment).isLive();
+  }
+
+  /**
+   * @return the values derived from the map once or, if the map
+   *         is live, at this call
+   */
+  private Derived derived() {
+    final Derived values = this.derived;
+    return values != null ? values : new Derived(this.environment, this.application);
+  }
+
+  /**
+   * Parses the value of a key once and memoizes the result. A
+   * value that fails to parse is not memoized; nor is any value
+   * of a live map.
+   *
+   * @param key the environment key
+   * @param type the type of the value
+   * @return the parsed value or {@link #MISSING}
+   */
+  private Object parsedValue(String key, ValueType type) {
+    if (this.derived == null) {
+      final String raw = this.environment.get(key);
+      return raw == null ? MISSING : type.parse(key, raw);
+    }
+    final ConcurrentMap<String, Object> parsed = this.parsedValues.get(type);
+    Object value = parsed.get(key);
+    if (value == null) {
+      final String raw = this.environment.get(key);
+      value = raw == null ? MISSING : type.parse(key, raw);
+      parsed.putIfAbsent(key, value);
+    }
+    return value;
   }
 
 }
@@ -0,0 +1,240 @@
+package com.fredhopper.environment;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An immutable read-through view over ordered layers of maps.
+ * A lookup returns the value of the first layer that has one;
+ * the layers are never copied. Optionally, the resolved values
+ * are cached per key so that a lookup walks the layers only
+ * once; a cached view does not reflect the later changes of the
+ * layers.
+ * <p>
+ * Iteration visits every key once with its resolved value;
+ * {@link #size()} is computed through iteration. A cached view
+ * is iterated over a snapshot taken at the first iteration from
+ * the cached values; the snapshot then answers all the lookups
+ * so that lookups and iteration always agree.
+ * <p>
+ * Only {@link String} keys are looked up in the layers; the
+ * other keys have no value.
+ */
+final class LayeredMap extends AbstractMap<String, String> {
+
+  /**
+   * The cached resolution of a key without value.
+   */
+  private static final Object MISSING = new Object();
+
+  private final List<Map<String, String>> layers;
+  private final ConcurrentMap<String, Object> cache;
+  private final Set<Entry<String, String>> entrySet = new EntrySet();
+  private volatile Map<String, String> snapshot;
+
+  /**
+   * C'tor.
+   *
+   * @param layers the layers in the order of precedence; the
+   *        first layer overrides all the others
+   * @param cached if <code>true</code>, the resolved values are
+   *        cached
+   */
+  LayeredMap(List<? extends Map<String, String>> layers, boolean cached) {
+    this.layers = Collections.unmodifiableList(new ArrayList<>(layers));
+    this.cache = cached ? new ConcurrentHashMap<>() : null;
+  }
+
+  /**
+   * @param layers the layers in the order of precedence
+   * @return a view without cache over the layers
+   */
+  @SafeVarargs
+  static LayeredMap of(Map<String, String>... layers) {
+    final List<Map<String, String>> list = new ArrayList<>(layers.length);
+    for (Map<String, String> layer : layers) {
+      list.add(layer);
+    }
+    return new LayeredMap(list, false);
+  }
+
+  /**
+   * @return the layers in the order of precedence
+   */
+  List<Map<String, String>> getLayers() {
+    return this.layers;
+  }
+
+  /**
+   * @return <code>true</code> if the resolved values are cached
+   */
+  boolean isCached() {
+    return this.cache != null;
+  }
+
+  /**
+   * @return <code>true</code> if the view is not cached and a
+   *         layer may change; a {@link FrozenStringMap} and a
+   *         view that is not live do not change
+   */
+  boolean isLive() {
+    if (this.cache != null) {
+      return false;
+    }
+    for (Map<String, String> layer : this.layers) {
+      if (!(layer instanceof FrozenStringMap)
+          && !(layer instanceof LayeredMap && !((LayeredMap) layer).isLive())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public String get(Object key) {
+    if (!(key instanceof String)) {
+      return null;
+    }
+    if (this.cache == null) {
+      return resolve(key, this.layers.size());
+    }
+    final Map<String, String> snapshot = this.snapshot;
+    if (snapshot != null) {
+      return snapshot.get(key);
+    }
+    Object value = this.cache.get(key);
+    if (value == null) {
+      final String resolved = resolve(key, this.layers.size());
+      final Object previous = this.cache.putIfAbsent((String) key,
+          resolved == null ? MISSING : resolved);
+      value = previous == null ? resolved : previous;
+    }
+    return value == MISSING ? null : (String) value;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return this.entrySet;
+  }
+
+  /**
+   * @return the snapshot of a cached view: the keys of the
+   *         layers and the cached keys with their cached values
+   */
+  private Map<String, String> snapshot() {
+    Map<String, String> snapshot = this.snapshot;
+    if (snapshot != null) {
+      return snapshot;
+    }
+    synchronized (this.cache) {
+      if (this.snapshot == null) {
+        final Map<String, String> entries = new LinkedHashMap<>();
+        for (Iterator<Entry<String, String>> it = new EntryIterator(); it.hasNext();) {
+          final String key = it.next().getKey();
+          final String value = get(key);
+          if (value != null) {
+            entries.put(key, value);
+          }
+        }
+        this.cache.forEach((key, value) -> {
+          if (value != MISSING) {
+            entries.putIfAbsent(key, (String) value);
+          }
+        });
+        this.snapshot = Collections.unmodifiableMap(entries);
+      }
+      return this.snapshot;
+    }
+  }
+
+  /**
+   * @param key the key
+   * @param end the index of the first layer not to look into
+   * @return the value of the first layer before
+   *         <code>end</code> that has one
+   */
+  private String resolve(Object key, int end) {
+    for (int i = 0; i < end; i++) {
+      final String value = this.layers.get(i).get(key);
+      if (value != null) {
+        return value;
+      }
+    }
+    return null;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      return cache == null ? new EntryIterator() : snapshot().entrySet().iterator();
+    }
+
+    @Override
+    public int size() {
+      if (cache != null) {
+        return snapshot().size();
+      }
+      int size = 0;
+      for (Iterator<Entry<String, String>> it = iterator(); it.hasNext(); it.next()) {
+        size++;
+      }
+      return size;
+    }
+  }
+
+  /**
+   * Visits the entries of the layers in order and skips the
+   * keys that a layer of higher precedence has.
+   */
+  private final class EntryIterator implements Iterator<Entry<String, String>> {
+
+    private int layer = -1;
+    private Iterator<Entry<String, String>> current = Collections.emptyIterator();
+    private Entry<String, String> next;
+
+    @Override
+    public boolean hasNext() {
+      while (this.next == null) {
+        if (this.current.hasNext()) {
+          final Entry<String, String> entry = this.current.next();
+          if (entry.getValue() != null && resolve(entry.getKey(), this.layer) == null) {
+            this.next = new SimpleImmutableEntry<>(entry);
+          }
+        } else if (this.layer + 1 < layers.size()) {
+          this.layer++;
+          this.current = layers.get(this.layer).entrySet().iterator();
+        } else {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public Entry<String, String> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final Entry<String, String> entry = this.next;
+      this.next = null;
+      return entry;
+    }
+  }
+
+}
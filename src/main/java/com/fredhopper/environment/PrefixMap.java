@@ -0,0 +1,147 @@
+package com.fredhopper.environment;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An immutable view of the keys of a map that start with a
+ * prefix; the keys of the view are stripped of the prefix. The
+ * keys are found through a sorted index of the keys of the map:
+ * the keys with a prefix are a contiguous range of the index
+ * that is located with binary search. Creating a view is
+ * <code>O(log n)</code> and iterating it is
+ * <code>O(matches)</code>; nothing is copied.
+ *
+ * @see Environment#getSubEnvironment(String)
+ */
+final class PrefixMap extends AbstractMap<String, String> {
+
+  private final Map<String, String> map;
+  private final String[] sortedKeys;
+  private final String prefix;
+  private final int from;
+  private final int to;
+  private final Set<Entry<String, String>> entrySet = new EntrySet();
+
+  /**
+   * C'tor.
+   *
+   * @param map the immutable map to view
+   * @param sortedKeys the sorted keys of <code>map</code>
+   * @param prefix the prefix of the keys to view
+   */
+  PrefixMap(Map<String, String> map, String[] sortedKeys, String prefix) {
+    this(map, sortedKeys, prefix, 0, sortedKeys.length);
+  }
+
+  private PrefixMap(Map<String, String> map, String[] sortedKeys, String prefix, int from,
+      int to) {
+    this.map = map;
+    this.sortedKeys = sortedKeys;
+    this.prefix = prefix;
+    this.from = lowerBound(sortedKeys, from, to, prefix);
+    this.to = upperBound(sortedKeys, this.from, to, prefix);
+  }
+
+  /**
+   * @param subPrefix the prefix of the keys of this view
+   * @return the view of the keys of the underlying map that
+   *         start with the prefix of this view followed by
+   *         <code>subPrefix</code>
+   */
+  PrefixMap subMap(String subPrefix) {
+    return new PrefixMap(this.map, this.sortedKeys, this.prefix + subPrefix, this.from, this.to);
+  }
+
+  @Override
+  public String get(Object key) {
+    return key instanceof String ? this.map.get(this.prefix + key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public int size() {
+    return this.to - this.from;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return this.entrySet;
+  }
+
+  /**
+   * @return the index of the first key in the range that is not
+   *         less than <code>prefix</code>
+   */
+  private static int lowerBound(String[] keys, int from, int to, String prefix) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (keys[mid].compareTo(prefix) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index after the last key in the range that
+   *         starts with <code>prefix</code>; the keys with the
+   *         prefix are contiguous in the sorted order
+   */
+  private static int upperBound(String[] keys, int from, int to, String prefix) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (keys[mid].startsWith(prefix)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      return new Iterator<Entry<String, String>>() {
+
+        private int next = from;
+
+        @Override
+        public boolean hasNext() {
+          return this.next < to;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+          if (!hasNext()) {
+            throw new NoSuchElementException();
+          }
+          final String key = sortedKeys[this.next++];
+          return new SimpleImmutableEntry<>(key.substring(prefix.length()), map.get(key));
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return PrefixMap.this.size();
+    }
+  }
+
+}
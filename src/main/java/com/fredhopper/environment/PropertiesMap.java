@@ -0,0 +1,60 @@
+package com.fredhopper.environment;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A read-only, read-through {@link java.util.Map} view over the
+ * {@link String} entries of {@link Properties}.
+ */
+final class PropertiesMap extends AbstractMap<String, String> {
+
+  private final Properties properties;
+
+  PropertiesMap(Properties properties) {
+    this.properties = properties;
+  }
+
+  @Override
+  public String get(Object key) {
+    return key instanceof String ? this.properties.getProperty((String) key) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return new AbstractSet<Entry<String, String>>() {
+
+      @Override
+      public Iterator<Entry<String, String>> iterator() {
+        final Iterator<String> names = properties.stringPropertyNames().iterator();
+        return new Iterator<Entry<String, String>>() {
+
+          @Override
+          public boolean hasNext() {
+            return names.hasNext();
+          }
+
+          @Override
+          public Entry<String, String> next() {
+            final String name = names.next();
+            return new SimpleImmutableEntry<>(name, properties.getProperty(name));
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return properties.stringPropertyNames().size();
+      }
+    };
+  }
+
+}
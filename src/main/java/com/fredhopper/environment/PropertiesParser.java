@@ -0,0 +1,269 @@
+package com.fredhopper.environment;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.function.BiConsumer;
+
+/**
+ * A streaming parser of the {@link Properties} format that
+ * reads the ISO-8859-1 bytes of a file straight from a
+ * {@link ByteBuffer}, e.g. a memory-mapped file, and passes
+ * every key-value pair to its target as soon as it is parsed.
+ * There is no intermediate {@link Properties} object and no
+ * reader.
+ * <p>
+ * The syntax is the same as {@link Properties#load(java.io.InputStream)}:
+ * <ul>
+ * <li>the lines that start with <code>#</code> or
+ * <code>!</code> are comments and the blank lines are ignored;
+ * as in Java 9 and later, this includes the continuation of an
+ * empty line
+ * <li>the key is separated from the value by <code>=</code>,
+ * <code>:</code> or white space
+ * <li>a line that ends with an odd number of backslashes
+ * continues on the next line without its leading white space
+ * <li><code>\t</code>, <code>\n</code>, <code>\r</code>,
+ * <code>\f</code> and <code>&#92;uXXXX</code> are escapes;
+ * a backslash before any other character is dropped
+ * </ul>
+ */
+final class PropertiesParser {
+
+  private final ByteBuffer buffer;
+  private char[] line = new char[256];
+  private char[] converted = new char[256];
+
+  /**
+   * C'tor.
+   *
+   * @param buffer the content to parse from its position to its
+   *        limit
+   */
+  PropertiesParser(ByteBuffer buffer) {
+    this.buffer = buffer;
+  }
+
+  /**
+   * Parses a file through a memory-mapped buffer.
+   *
+   * @param file the file to parse
+   * @return the key-value pairs of the file
+   * @throws IOException if the file cannot be read
+   * @throws IllegalArgumentException if the file has a
+   *         malformed <code>&#92;uXXXX</code> escape
+   */
+  static FrozenStringMap parse(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * @param buffer the content to parse
+   * @return the key-value pairs of the content
+   * @throws IllegalArgumentException if the content has a
+   *         malformed <code>&#92;uXXXX</code> escape
+   */
+  static FrozenStringMap parse(ByteBuffer buffer) {
+    final Entries entries = new Entries();
+    new PropertiesParser(buffer).parse(entries);
+    return FrozenStringMap.of(entries.keys, entries.values, entries.count);
+  }
+
+  /**
+   * Parses the content and passes the key-value pairs in order
+   * to a target. A later pair with the same key overrides an
+   * earlier one.
+   *
+   * @param target the target of the key-value pairs
+   * @throws IllegalArgumentException if the content has a
+   *         malformed <code>&#92;uXXXX</code> escape
+   */
+  void parse(BiConsumer<String, String> target) {
+    int length;
+    while ((length = readLine()) >= 0) {
+      int keyLength = 0;
+      int valueStart = length;
+      boolean separator = false;
+      boolean precedingBackslash = false;
+      while (keyLength < length) {
+        final char c = this.line[keyLength];
+        if ((c == '=' || c == ':') && !precedingBackslash) {
+          valueStart = keyLength + 1;
+          separator = true;
+          break;
+        } else if (isWhitespace(c) && !precedingBackslash) {
+          valueStart = keyLength + 1;
+          break;
+        }
+        precedingBackslash = c == '\\' && !precedingBackslash;
+        keyLength++;
+      }
+      while (valueStart < length) {
+        final char c = this.line[valueStart];
+        if (!isWhitespace(c)) {
+          if (!separator && (c == '=' || c == ':')) {
+            separator = true;
+          } else {
+            break;
+          }
+        }
+        valueStart++;
+      }
+      target.accept(convert(0, keyLength), convert(valueStart, length - valueStart));
+    }
+  }
+
+  /**
+   * Reads the next logical line into {@link #line} without its
+   * comments, blank lines, leading white space and line
+   * continuations.
+   *
+   * @return the length of the line or <code>-1</code> at the end
+   *         of the content
+   */
+  private int readLine() {
+    int length = 0;
+    boolean skipWhitespace = true;
+    boolean comment = false;
+    boolean appendedLineBegin = false;
+    boolean precedingBackslash = false;
+    boolean skipLineFeed = false;
+    while (this.buffer.hasRemaining()) {
+      final char c = (char) (this.buffer.get() & 0xff);
+      if (skipLineFeed) {
+        skipLineFeed = false;
+        if (c == '\n') {
+          continue;
+        }
+      }
+      if (skipWhitespace) {
+        if (isWhitespace(c) || (!appendedLineBegin && (c == '\r' || c == '\n'))) {
+          continue;
+        }
+        skipWhitespace = false;
+        appendedLineBegin = false;
+      }
+      if (length == 0 && !comment && (c == '#' || c == '!')) {
+        comment = true;
+        continue;
+      }
+      if (c != '\n' && c != '\r') {
+        if (comment) {
+          continue;
+        }
+        if (length == this.line.length) {
+          this.line = Arrays.copyOf(this.line, length * 2);
+        }
+        this.line[length++] = c;
+        precedingBackslash = c == '\\' && !precedingBackslash;
+      } else if (comment || length == 0) {
+        comment = false;
+        skipWhitespace = true;
+      } else if (precedingBackslash) {
+        length--;
+        if (!this.buffer.hasRemaining()) {
+          // As Properties, a continuation at the end ends the line, even
+          // an empty one that stands for an empty key
+          return length;
+        }
+        skipWhitespace = true;
+        appendedLineBegin = true;
+        precedingBackslash = false;
+        skipLineFeed = c == '\r';
+      } else {
+        // The line feed of \r\n is skipped as a blank line
+        return length;
+      }
+    }
+    if (length == 0 || comment) {
+      return -1;
+    }
+    return precedingBackslash ? length - 1 : length;
+  }
+
+  /**
+   * Converts the escapes of a part of {@link #line}.
+   *
+   * @param offset the start of the part
+   * @param length the length of the part
+   * @return the part without escapes
+   */
+  private String convert(int offset, int length) {
+    final int end = offset + length;
+    int i = offset;
+    while (i < end && this.line[i] != '\\') {
+      i++;
+    }
+    if (i == end) {
+      // The common case: no escapes
+      return new String(this.line, offset, length);
+    }
+    if (this.converted.length < length) {
+      this.converted = new char[Math.max(length, this.converted.length * 2)];
+    }
+    int size = i - offset;
+    System.arraycopy(this.line, offset, this.converted, 0, size);
+    while (i < end) {
+      char c = this.line[i++];
+      if (c == '\\' && i < end) {
+        c = this.line[i++];
+        if (c == 'u') {
+          if (end - i < 4) {
+            throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+          }
+          int value = 0;
+          for (int j = 0; j < 4; j++) {
+            final int digit = Character.digit(this.line[i++], 16);
+            if (digit < 0) {
+              throw new IllegalArgumentException("Malformed \\uxxxx encoding.");
+            }
+            value = (value << 4) | digit;
+          }
+          c = (char) value;
+        } else if (c == 't') {
+          c = '\t';
+        } else if (c == 'r') {
+          c = '\r';
+        } else if (c == 'n') {
+          c = '\n';
+        } else if (c == 'f') {
+          c = '\f';
+        }
+      }
+      this.converted[size++] = c;
+    }
+    return new String(this.converted, 0, size);
+  }
+
+  private static boolean isWhitespace(char c) {
+    return c == ' ' || c == '\t' || c == '\f';
+  }
+
+  /**
+   * The parsed key-value pairs in parallel arrays.
+   */
+  private static final class Entries implements BiConsumer<String, String> {
+
+    private String[] keys = new String[64];
+    private String[] values = new String[64];
+    private int count;
+
+    @Override
+    public void accept(String key, String value) {
+      if (this.count == this.keys.length) {
+        this.keys = Arrays.copyOf(this.keys, this.count * 2);
+        this.values = Arrays.copyOf(this.values, this.count * 2);
+      }
+      this.keys[this.count] = key;
+      this.values[this.count] = value;
+      this.count++;
+    }
+  }
+
+}
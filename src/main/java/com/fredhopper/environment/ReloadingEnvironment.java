@@ -0,0 +1,371 @@
+package com.fredhopper.environment;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An {@link Environment} that is reloaded when its environment
+ * file changes. The file is watched through a
+ * {@link WatchService}; a burst of changes is debounced and a
+ * new immutable snapshot of the environment is swapped in
+ * atomically. Reads are served from the current snapshot
+ * without any locking.
+ * <p>
+ * The environment is composed in the same order as
+ * {@link Environment#createEnvironment(Map)}. If the file is
+ * not readable or cannot be loaded, the current snapshot is
+ * kept.
+ */
+public final class ReloadingEnvironment implements Environment, Closeable {
+
+  /**
+   * The default debounce delay of the changes of the file:
+   * {@value} milli-seconds.
+   */
+  public static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+
+  private final Map<String, String> defaults;
+  private final Path file;
+  private final long debounceMillis;
+  private final boolean interpolate;
+  private final Collection<EnvironmentChangeListener> listeners = new CopyOnWriteArrayList<>();
+  private final WatchService watchService;
+  private volatile Environment snapshot;
+
+  /**
+   * Creates a reloading environment for the file that
+   * {@link Environment#ENVIRONMENT_FILE} points to with the
+   * default debounce delay.
+   *
+   * @param defaults the default values of the environment
+   * @throws IllegalArgumentException if
+   *         {@link Environment#ENVIRONMENT_FILE} is not set or
+   *         does not point to a single file: a list, a directory
+   *         or a glob
+   * @throws IOException if the file cannot be watched
+   */
+  public ReloadingEnvironment(Map<String, String> defaults) throws IOException {
+    this(defaults, environmentFile(), DEFAULT_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param defaults the default values of the environment
+   * @param file the environment file to watch
+   * @param debounce the delay without changes of the file
+   *        before it is reloaded
+   * @param unit the unit of <code>debounce</code>
+   * @throws IOException if the file cannot be watched
+   */
+  public ReloadingEnvironment(Map<String, String> defaults, Path file, long debounce,
+      TimeUnit unit) throws IOException {
+    this(defaults, file, debounce, unit, false);
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param defaults the default values of the environment
+   * @param file the environment file to watch
+   * @param debounce the delay without changes of the file
+   *        before it is reloaded
+   * @param unit the unit of <code>debounce</code>
+   * @param interpolate if <code>true</code>, the placeholders in
+   *        the values are expanded as in
+   *        {@link Environment#interpolated()}; every snapshot
+   *        compiles its own templates and caches its own
+   *        expansions
+   * @throws IOException if the file cannot be watched
+   * @throws IllegalArgumentException if the values reference
+   *         each other in a cycle
+   */
+  public ReloadingEnvironment(Map<String, String> defaults, Path file, long debounce,
+      TimeUnit unit, boolean interpolate) throws IOException {
+    this.defaults = new HashMap<>(defaults);
+    this.file = file.toAbsolutePath();
+    this.debounceMillis = unit.toMillis(debounce);
+    this.interpolate = interpolate;
+    this.snapshot = new KeyValueEnvironment(load());
+    this.watchService = FileSystems.getDefault().newWatchService();
+    try {
+      this.file.getParent().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+          StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+    } catch (IOException | RuntimeException e) {
+      this.watchService.close();
+      throw e;
+    }
+    final Thread watcher =
+        new Thread(this::watch, "environment-watcher-" + this.file.getFileName());
+    watcher.setDaemon(true);
+    watcher.start();
+  }
+
+  /**
+   * Add a new {@link EnvironmentChangeListener}
+   *
+   * @param listener the {@link EnvironmentChangeListener} to add
+   */
+  public void addChangeListener(EnvironmentChangeListener listener) {
+    this.listeners.add(listener);
+  }
+
+  /**
+   * Remove a registered {@link EnvironmentChangeListener}
+   *
+   * @param listener the {@link EnvironmentChangeListener} to
+   *        remove
+   */
+  public void removeChangeListener(EnvironmentChangeListener listener) {
+    this.listeners.remove(listener);
+  }
+
+  /**
+   * Reloads the environment now. If the environment has
+   * changed, the new snapshot is swapped in and the listeners
+   * are notified.
+   *
+   * @return <code>true</code> if the environment changed
+   * @throws IllegalArgumentException if the environment file
+   *         cannot be loaded or its values reference each other
+   *         in a cycle
+   */
+  public synchronized boolean reload() {
+    if (!Files.isReadable(this.file)) {
+      return false;
+    }
+    final Map<String, String> previous = this.snapshot.asMap();
+    final Map<String, String> env = load();
+    final Set<String> changedKeys = changedKeys(previous, env);
+    if (changedKeys.isEmpty()) {
+      return false;
+    }
+    final Environment current = new KeyValueEnvironment(env);
+    this.snapshot = current;
+    for (EnvironmentChangeListener listener : this.listeners) {
+      try {
+        listener.environmentChanged(current, previous, changedKeys);
+      } catch (RuntimeException e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Stops watching the environment file.
+   */
+  @Override
+  public void close() throws IOException {
+    this.watchService.close();
+  }
+
+  @Override
+  public String getEnvironmentName() {
+    return this.snapshot.getEnvironmentName();
+  }
+
+  @Override
+  public String getApplicationName() {
+    return this.snapshot.getApplicationName();
+  }
+
+  @Override
+  public Path getApplicationRoot() {
+    return this.snapshot.getApplicationRoot();
+  }
+
+  @Override
+  public Path getApplicationLogsRoot() {
+    return this.snapshot.getApplicationLogsRoot();
+  }
+
+  @Override
+  public String getLogFileName() {
+    return this.snapshot.getLogFileName();
+  }
+
+  @Override
+  public String getRotatingLogFilePattern() {
+    return this.snapshot.getRotatingLogFilePattern();
+  }
+
+  @Override
+  public String getAccessLogFileName() {
+    return this.snapshot.getAccessLogFileName();
+  }
+
+  @Override
+  public String getRotatingAccessLogFileName() {
+    return this.snapshot.getRotatingAccessLogFileName();
+  }
+
+  @Override
+  public String getContextPath() {
+    return this.snapshot.getContextPath();
+  }
+
+  @Override
+  public String getServerHost() {
+    return this.snapshot.getServerHost();
+  }
+
+  @Override
+  public int getServerPort() {
+    return this.snapshot.getServerPort();
+  }
+
+  @Override
+  public String getValue(String key, Supplier<String> supplier) {
+    return this.snapshot.getValue(key, supplier);
+  }
+
+  @Override
+  public int getInt(String key, int defaultValue) {
+    return this.snapshot.getInt(key, defaultValue);
+  }
+
+  @Override
+  public long getLong(String key, long defaultValue) {
+    return this.snapshot.getLong(key, defaultValue);
+  }
+
+  @Override
+  public boolean getBoolean(String key, boolean defaultValue) {
+    return this.snapshot.getBoolean(key, defaultValue);
+  }
+
+  @Override
+  public Duration getDuration(String key, Duration defaultValue) {
+    return this.snapshot.getDuration(key, defaultValue);
+  }
+
+  @Override
+  public Path getPath(String key, Path defaultValue) {
+    return this.snapshot.getPath(key, defaultValue);
+  }
+
+  @Override
+  public List<String> getList(String key, List<String> defaultValue) {
+    return this.snapshot.getList(key, defaultValue);
+  }
+
+  /**
+   * @return the view of the current snapshot; the view is not
+   *         reloaded
+   */
+  @Override
+  public Environment getSubEnvironment(String prefix) {
+    return this.snapshot.getSubEnvironment(prefix);
+  }
+
+  /**
+   * @return the key-value pairs of the current snapshot
+   */
+  @Override
+  public Map<String, String> asMap() {
+    return this.snapshot.asMap();
+  }
+
+  @Override
+  public String toString() {
+    return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode()) + "[" + this.file
+        + "]";
+  }
+
+  /**
+   * Waits for the changes of the file, debounces them and
+   * reloads until the {@link WatchService} is closed.
+   */
+  private void watch() {
+    try {
+      while (true) {
+        if (!isFileChanged(this.watchService.take())) {
+          continue;
+        }
+        WatchKey key;
+        while ((key = this.watchService.poll(this.debounceMillis, TimeUnit.MILLISECONDS)) != null) {
+          isFileChanged(key);
+        }
+        try {
+          reload();
+        } catch (IllegalArgumentException e) {
+          final Thread thread = Thread.currentThread();
+          thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+      }
+    } catch (ClosedWatchServiceException | InterruptedException e) {
+      // Closed
+    }
+  }
+
+  /**
+   * @return the key-value pairs of a new snapshot
+   */
+  private Map<String, String> load() {
+    final Map<String, String> env = EnvironmentLoader.load(this.defaults, this.file);
+    return this.interpolate ? new InterpolatingMap(env) : env;
+  }
+
+  private static Set<String> changedKeys(Map<String, String> previous,
+      Map<String, String> current) {
+    final Set<String> changedKeys = new HashSet<>();
+    previous.forEach((key, value) -> {
+      if (!Objects.equals(value, current.get(key))) {
+        changedKeys.add(key);
+      }
+    });
+    current.keySet().stream().filter(key -> !previous.containsKey(key)).forEach(changedKeys::add);
+    return Collections.unmodifiableSet(changedKeys);
+  }
+
+  private boolean isFileChanged(WatchKey key) {
+    boolean changed = false;
+    for (WatchEvent<?> event : key.pollEvents()) {
+      if (this.file.getFileName().equals(event.context())
+          || event.kind() == StandardWatchEventKinds.OVERFLOW) {
+        changed = true;
+      }
+    }
+    key.reset();
+    return changed;
+  }
+
+  private static Path environmentFile() {
+    final String path = System.getProperty(ENVIRONMENT_FILE, null);
+    if (path == null) {
+      throw new IllegalArgumentException("No environment file is set in " + ENVIRONMENT_FILE);
+    }
+    final boolean existing = Files.isRegularFile(Paths.get(path));
+    if (!existing && (path.contains(File.pathSeparator) || EnvironmentLoader.isGlob(path))
+        || Files.isDirectory(Paths.get(path))) {
+      throw new IllegalArgumentException("A single environment file must be set in "
+          + ENVIRONMENT_FILE + " to reload: " + path);
+    }
+    return Paths.get(path);
+  }
+
+}
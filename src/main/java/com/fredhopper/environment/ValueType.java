@@ -0,0 +1,160 @@
+package com.fredhopper.environment;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The types of the values that {@link Environment} can parse
+ * through its typed accessors.
+ *
+ * @see Environment#getInt(String, int)
+ */
+enum ValueType {
+
+  /**
+   * See {@link Integer#parseInt(String)}.
+   */
+  INT {
+    @Override
+    Object parse(String value) {
+      return Integer.valueOf(value.trim());
+    }
+  },
+
+  /**
+   * See {@link Long#parseLong(String)}.
+   */
+  LONG {
+    @Override
+    Object parse(String value) {
+      return Long.valueOf(value.trim());
+    }
+  },
+
+  /**
+   * Either <code>true</code> or <code>false</code> ignoring the
+   * case.
+   */
+  BOOLEAN {
+    @Override
+    Object parse(String value) {
+      final String v = value.trim();
+      if ("true".equalsIgnoreCase(v)) {
+        return Boolean.TRUE;
+      }
+      if ("false".equalsIgnoreCase(v)) {
+        return Boolean.FALSE;
+      }
+      throw new IllegalArgumentException("Not a boolean: " + value);
+    }
+  },
+
+  /**
+   * Either an ISO-8601 duration, e.g. <code>PT30S</code>, or a
+   * number with an optional unit of <code>ns</code>,
+   * <code>us</code>, <code>ms</code>, <code>s</code>,
+   * <code>m</code>, <code>h</code> or <code>d</code>. A number
+   * without unit is in milli-seconds.
+   */
+  DURATION {
+    @Override
+    Object parse(String value) {
+      final String v = value.trim();
+      if (v.startsWith("P") || v.startsWith("p") || v.startsWith("-P")) {
+        return Duration.parse(v);
+      }
+      int unitIndex = v.length();
+      while (unitIndex > 0 && Character.isLetter(v.charAt(unitIndex - 1))) {
+        unitIndex--;
+      }
+      final long amount = Long.parseLong(v.substring(0, unitIndex).trim());
+      try {
+        return Duration.of(amount, unit(v.substring(unitIndex)));
+      } catch (ArithmeticException e) {
+        throw new IllegalArgumentException("Duration out of range: " + value, e);
+      }
+    }
+
+    private ChronoUnit unit(String unit) {
+      switch (unit) {
+        case "ns":
+          return ChronoUnit.NANOS;
+        case "us":
+          return ChronoUnit.MICROS;
+        case "":
+        case "ms":
+          return ChronoUnit.MILLIS;
+        case "s":
+          return ChronoUnit.SECONDS;
+        case "m":
+          return ChronoUnit.MINUTES;
+        case "h":
+          return ChronoUnit.HOURS;
+        case "d":
+          return ChronoUnit.DAYS;
+        default:
+          throw new IllegalArgumentException("Unknown duration unit: " + unit);
+      }
+    }
+  },
+
+  /**
+   * See {@link Paths#get(String, String...)}.
+   */
+  PATH {
+    @Override
+    Object parse(String value) {
+      return Paths.get(value.trim());
+    }
+  },
+
+  /**
+   * A comma-separated list; the elements are trimmed and the
+   * empty elements are ignored. The list is immutable.
+   */
+  LIST {
+    @Override
+    Object parse(String value) {
+      final List<String> list = new ArrayList<>();
+      for (String element : value.split(",")) {
+        final String e = element.trim();
+        if (!e.isEmpty()) {
+          list.add(e);
+        }
+      }
+      return Collections.unmodifiableList(list);
+    }
+  },
+
+  ;
+
+  /**
+   * @param value the raw value
+   * @return the parsed value
+   * @throws RuntimeException if the value cannot be parsed
+   */
+  abstract Object parse(String value);
+
+  /**
+   * Parses the value of a key.
+   *
+   * @param key the environment key
+   * @param value the raw value of the key
+   * @return the parsed value
+   * @throws IllegalArgumentException if the value cannot be
+   *         parsed
+   */
+  Object parse(String key, String value) {
+    try {
+      return parse(value);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException(
+          "Invalid " + name().toLowerCase() + " value of " + key + ": " + value, e);
+    }
+  }
+
+}
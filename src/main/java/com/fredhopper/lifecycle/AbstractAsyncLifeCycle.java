@@ -0,0 +1,203 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * A base implementation structure for {@link AsyncLifeCycle}
+ * that follows the same state transitions as
+ * {@link AbstractLifeCycle}. The stages are started on a
+ * caller-supplied {@link Executor}; inherited classes provide
+ * non-blocking stages that return a {@link CompletionStage}.
+ * <p>
+ * The blocking {@link LifeCycle} methods remain available and
+ * wait for the completion of the asynchronous stages; this
+ * allows to manage an instance through a {@link Container}.
+ */
+public abstract class AbstractAsyncLifeCycle extends AbstractLifeCycle implements AsyncLifeCycle {
+
+  private final Executor executor;
+
+  /**
+   * C'tor.
+   *
+   * @param executor the {@link Executor} to start the stages
+   *        and to change the state on
+   */
+  protected AbstractAsyncLifeCycle(Executor executor) {
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletionStage<State> initLifeCycleAsync() {
+    return transition(State.STOPPED, null, State.INITIALIZED, this::doInitLifeCycleAsync);
+  }
+
+  @Override
+  public CompletionStage<State> startLifeCycleAsync() {
+    return transition(State.INITIALIZED, State.STARTING, State.RUNNING,
+        this::doStartLifeCycleAsync);
+  }
+
+  @Override
+  public CompletionStage<State> pauseAsync() {
+    return transition(State.RUNNING, null, State.PAUSED, this::doPauseAsync);
+  }
+
+  @Override
+  public CompletionStage<State> resumeAsync() {
+    return transition(State.PAUSED, null, State.RUNNING, this::doResumeAsync);
+  }
+
+  @Override
+  public CompletionStage<State> stopLifeCycleAsync() {
+    return transition(State.RUNNING, State.STOPPING, State.STOPPED, this::doStopLifeCycleAsync);
+  }
+
+  /**
+   * Similar to {@link #initLifeCycleAsync()} for inherited
+   * classes.
+   *
+   * @return the completion of the initialization
+   */
+  protected abstract CompletionStage<Void> doInitLifeCycleAsync();
+
+  /**
+   * Similar to {@link #startLifeCycleAsync()} for inherited
+   * classes.
+   *
+   * @return the completion of the start
+   */
+  protected abstract CompletionStage<Void> doStartLifeCycleAsync();
+
+  /**
+   * Similar to {@link #pauseAsync()} for inherited classes.
+   *
+   * @return the completion of the pause
+   */
+  protected CompletionStage<Void> doPauseAsync() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Similar to {@link #resumeAsync()} for inherited classes.
+   *
+   * @return the completion of the resume
+   */
+  protected CompletionStage<Void> doResumeAsync() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Similar to {@link #stopLifeCycleAsync()} for inherited
+   * classes.
+   *
+   * @return the completion of the stop
+   */
+  protected abstract CompletionStage<Void> doStopLifeCycleAsync();
+
+  @Override
+  protected final void doInitLifeCycle() throws Exception {
+    await(doInitLifeCycleAsync());
+  }
+
+  @Override
+  protected final void doStartLifeCycle() throws Exception {
+    await(doStartLifeCycleAsync());
+  }
+
+  @Override
+  protected final void doPause() throws Exception {
+    await(doPauseAsync());
+  }
+
+  @Override
+  protected final void doResume() throws Exception {
+    await(doResumeAsync());
+  }
+
+  @Override
+  protected final void doStopLifeCycle() throws Exception {
+    await(doStopLifeCycleAsync());
+  }
+
+  /**
+   * Executes a transition: changes the state from
+   * <code>from</code> to <code>via</code> if there is an
+   * intermediate state, executes the stage, and finally changes
+   * the state to <code>to</code>. A failed start is rolled back
+   * to {@link State#INITIALIZED}. The state is always changed
+   * on the executor, not on the thread that completes the
+   * stage. The transition is recorded to the installed
+   * {@link LifeCycleMetrics} if any when it completes.
+   */
+  private CompletionStage<State> transition(State from, State via, State to,
+      Supplier<CompletionStage<Void>> stage) {
+    final LifeCycleMetrics metrics = getMetrics();
+    final long start = metrics == LifeCycleMetrics.NOOP ? 0 : System.nanoTime();
+    final State before = via == null ? from : via;
+    final CompletableFuture<State> completion = CompletableFuture.supplyAsync(() -> {
+      if (via != null) {
+        changeStateUnchecked(from, via);
+      }
+      return null;
+    }, this.executor).thenCompose(
+        ignored -> via == State.STARTING ? rollbackOnFailure(stage, via, from) : stage.get())
+        .thenApplyAsync(ignored -> {
+          changeStateUnchecked(before, to);
+          return to;
+        }, this.executor);
+    if (metrics == LifeCycleMetrics.NOOP) {
+      return completion;
+    }
+    return completion.whenComplete((state, failure) -> {
+      final long nanos = System.nanoTime() - start;
+      if (failure == null) {
+        metrics.transitionCompleted(this, from, to, nanos);
+      } else {
+        metrics.transitionFailed(this, from, to, nanos,
+            failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause() : failure);
+      }
+    });
+  }
+
+  private CompletionStage<Void> rollbackOnFailure(Supplier<CompletionStage<Void>> stage,
+      State from, State to) {
+    CompletionStage<Void> completion;
+    try {
+      completion = stage.get();
+    } catch (RuntimeException | Error e) {
+      final CompletableFuture<Void> failed = new CompletableFuture<>();
+      failed.completeExceptionally(e);
+      completion = failed;
+    }
+    return completion.whenCompleteAsync((ignored, failure) -> {
+      if (failure != null) {
+        rollbackState(from, to, failure);
+      }
+    }, this.executor);
+  }
+
+  private void changeStateUnchecked(State from, State to) {
+    try {
+      changeState(from, to);
+    } catch (Exception e) {
+      throw new CompletionException(e);
+    }
+  }
+
+  private static void await(CompletionStage<Void> stage) throws Exception {
+    try {
+      stage.toCompletableFuture().get();
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw cause instanceof Exception ? (Exception) cause : e;
+    }
+  }
+
+}
@@ -1,7 +1,11 @@
 package com.fredhopper.lifecycle;
 
+import java.lang.ref.WeakReference;
 import java.util.Collection;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 /**
@@ -9,8 +13,26 @@ import java.util.concurrent.atomic.AtomicReference;
  */
 public abstract class AbstractLifeCycle implements LifeCycle {
 
+  /**
+   * The body of a transition.
+   */
+  @FunctionalInterface
+  private interface Transition {
+    void run() throws Exception;
+  }
+
+  private static volatile LifeCycleMetrics metrics = LifeCycleMetrics.NOOP;
+  private static volatile LifeCycleJournal journal;
+
   private final AtomicReference<State> state = new AtomicReference<State>(State.STOPPED);
-  private final Collection<StateListener> stateListeners = new CopyOnWriteArrayList<>();
+  private final ConcurrentMap<StateListener, SerialExecutor> stateDispatchers =
+      new ConcurrentHashMap<>();
+  private final StateListenerRegistry stateListeners =
+      new StateListenerRegistry(this.stateDispatchers::remove);
+  private final Object stateMonitor = new Object();
+  private volatile Executor stateListenerExecutor;
+  // The reference recorded to the journal; created on first use
+  private volatile WeakReference<LifeCycle> journalReference;
 
   @Override
   public State getState() {
@@ -22,37 +44,93 @@ public abstract class AbstractLifeCycle implements LifeCycle {
     return this.stateListeners;
   }
 
+  /**
+   * Installs the instrumentation of all the life cycle objects.
+   *
+   * @param metrics the {@link LifeCycleMetrics} to record to or
+   *        <code>null</code> to disable the instrumentation
+   */
+  public static void setMetrics(LifeCycleMetrics metrics) {
+    AbstractLifeCycle.metrics = metrics == null ? LifeCycleMetrics.NOOP : metrics;
+  }
+
+  /**
+   * @return the installed {@link LifeCycleMetrics}
+   */
+  public static LifeCycleMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Installs the journal of the changes of state of all the life
+   * cycle objects.
+   *
+   * @param journal the {@link LifeCycleJournal} to record to or
+   *        <code>null</code> to disable the journal
+   */
+  public static void setJournal(LifeCycleJournal journal) {
+    AbstractLifeCycle.journal = journal;
+  }
+
+  /**
+   * @return the installed {@link LifeCycleJournal} or
+   *         <code>null</code>
+   */
+  public static LifeCycleJournal getJournal() {
+    return journal;
+  }
+
   @Override
   public void initLifeCycle() throws Exception {
-    doInitLifeCycle();
-    changeState(State.STOPPED, State.INITIALIZED);
+    transition(State.STOPPED, State.INITIALIZED, () -> {
+      doInitLifeCycle();
+      changeState(State.STOPPED, State.INITIALIZED);
+    });
   }
 
 
+  /**
+   * If {@link #doStartLifeCycle()} fails, the state is rolled
+   * back to {@link State#INITIALIZED} so that the start can be
+   * retried.
+   */
   @Override
   public void startLifeCycle() throws Exception {
-    changeState(State.INITIALIZED, State.STARTING);
-    doStartLifeCycle();
-    changeState(State.STARTING, State.RUNNING);
+    transition(State.INITIALIZED, State.RUNNING, () -> {
+      changeState(State.INITIALIZED, State.STARTING);
+      try {
+        doStartLifeCycle();
+      } catch (Exception | Error e) {
+        rollbackState(State.STARTING, State.INITIALIZED, e);
+        throw e;
+      }
+      changeState(State.STARTING, State.RUNNING);
+    });
   }
 
   @Override
   public void pause() throws Exception {
-    doPause();
-    changeState(State.RUNNING, State.PAUSED);
+    transition(State.RUNNING, State.PAUSED, () -> {
+      doPause();
+      changeState(State.RUNNING, State.PAUSED);
+    });
   }
 
   @Override
   public void resume() throws Exception {
-    doResume();
-    changeState(State.PAUSED, State.RUNNING);
+    transition(State.PAUSED, State.RUNNING, () -> {
+      doResume();
+      changeState(State.PAUSED, State.RUNNING);
+    });
   }
 
   @Override
   public void stopLifeCycle() throws Exception {
-    changeState(State.RUNNING, State.STOPPING);
-    doStopLifeCycle();
-    changeState(State.STOPPING, State.STOPPED);
+    transition(State.RUNNING, State.STOPPED, () -> {
+      changeState(State.RUNNING, State.STOPPING);
+      doStopLifeCycle();
+      changeState(State.STOPPING, State.STOPPED);
+    });
   }
 
   /**
@@ -73,6 +151,72 @@ public abstract class AbstractLifeCycle implements LifeCycle {
     this.stateListeners.remove(listener);
   }
 
+  /**
+   * Enables the asynchronous dispatch of changes of state. When
+   * enabled, every {@link StateListener} is notified on the
+   * {@link Executor} in the order of the changes; only a
+   * {@link SynchronousStateListener} is still notified in the
+   * thread that changes the state and can fail the change.
+   * <p>
+   * The executor can be replaced at any time: the changes that
+   * are not delivered yet are delivered on the new executor
+   * after the earlier ones, and a listener is notified
+   * synchronously again only once its earlier changes are
+   * delivered.
+   *
+   * @param executor the {@link Executor} to notify the
+   *        listeners on or <code>null</code> to notify all the
+   *        listeners synchronously
+   */
+  public void setStateListenerExecutor(Executor executor) {
+    this.stateListenerExecutor = executor;
+    final Executor delegate = executor == null ? Runnable::run : executor;
+    this.stateDispatchers.values().forEach(d -> d.setExecutor(delegate));
+  }
+
+  /**
+   * Waits until {@link #getState()} becomes the expected state.
+   * The waiting thread is woken up by
+   * {@link #changeState(State, State)} and does not poll.
+   *
+   * @param expectedState the state to wait for
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void awaitState(State expectedState) throws InterruptedException {
+    while (!awaitState(expectedState, 1, TimeUnit.DAYS)) {
+      // Keep waiting
+    }
+  }
+
+  /**
+   * Waits until {@link #getState()} becomes the expected state
+   * or the timeout elapses. The waiting thread is woken up by
+   * {@link #changeState(State, State)} and does not poll.
+   *
+   * @param expectedState the state to wait for
+   * @param timeout the maximum time to wait
+   * @param unit the unit of <code>timeout</code>
+   * @return <code>true</code> if the expected state is reached
+   *         and <code>false</code> if the timeout elapsed
+   *         before
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean awaitState(State expectedState, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    long remaining = unit.toNanos(timeout);
+    final long deadline = System.nanoTime() + remaining;
+    synchronized (this.stateMonitor) {
+      while (getState() != expectedState) {
+        if (remaining <= 0) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this.stateMonitor, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    }
+    return true;
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode());
@@ -80,8 +224,11 @@ public abstract class AbstractLifeCycle implements LifeCycle {
 
   /**
    * First changes the state from a current value to a target
-   * value. Second, publishes the change of state to all the
-   * listeners through {@link #getStateListeners()}.
+   * value and wakes up the threads waiting in
+   * {@link #awaitState(State, long, TimeUnit)}. Second,
+   * publishes the change of state to all the listeners through
+   * {@link #getStateListeners()}. The attempt is recorded to
+   * the installed {@link LifeCycleJournal} if any.
    * 
    * @param from the current state
    * @param to the new state
@@ -90,16 +237,45 @@ public abstract class AbstractLifeCycle implements LifeCycle {
    *         change.
    */
   protected void changeState(State from, State to) throws Exception {
+    final LifeCycleJournal journal = AbstractLifeCycle.journal;
     if (!this.state.compareAndSet(from, to)) {
+      if (journal != null) {
+        journal.record(journalReference(), from, to, getState(), LifeCycleJournal.Outcome.REJECTED);
+      }
       throw new Exception("Cannot change state from " + from + " to " + to + " for " + this);
     }
+    if (journal != null) {
+      journal.record(journalReference(), from, to, to, LifeCycleJournal.Outcome.CHANGED);
+    }
+    synchronized (this.stateMonitor) {
+      this.stateMonitor.notifyAll();
+    }
     publishState(from, to);
   }
 
+  /**
+   * Rolls back the state after a failed stage; a failure of the
+   * rollback is suppressed by the failure of the stage.
+   *
+   * @param from the current state
+   * @param to the state before the stage
+   * @param failure the failure of the stage
+   */
+  void rollbackState(State from, State to, Throwable failure) {
+    try {
+      changeState(from, to);
+    } catch (Exception e) {
+      failure.addSuppressed(e);
+    }
+  }
+
   /**
    * Propagates a change of {@link State} to all the
    * {@link StateListener}registered with this life cycle
-   * object.
+   * object. If a listener executor is set, only the
+   * {@link SynchronousStateListener} instances are notified in
+   * the current thread. The listeners are notified from a
+   * snapshot without holding any lock.
    * 
    * @see #changeState(State, State)
    * 
@@ -108,14 +284,117 @@ public abstract class AbstractLifeCycle implements LifeCycle {
    * @throws Exception if a listener fails to accept the change
    */
   protected void publishState(State from, State to) throws Exception {
-    final Collection<StateListener> listeners = getStateListeners();
-    synchronized (listeners) {
-      for (StateListener listener : listeners) {
-        listener.stateChanged(from, to);
+    final Executor executor = this.stateListenerExecutor;
+    final LifeCycleMetrics metrics = AbstractLifeCycle.metrics;
+    for (StateListener listener : snapshot(getStateListeners())) {
+      final SerialExecutor dispatcher;
+      if (listener instanceof SynchronousStateListener) {
+        dispatcher = null;
+      } else if (executor != null) {
+        dispatcher =
+            this.stateDispatchers.computeIfAbsent(listener, l -> new SerialExecutor(executor));
+      } else {
+        dispatcher = pendingDispatcher(listener);
+      }
+      if (dispatcher == null) {
+        if (metrics == LifeCycleMetrics.NOOP) {
+          listener.stateChanged(from, to);
+        } else {
+          notify(metrics, listener, from, to);
+        }
+      } else if (metrics == LifeCycleMetrics.NOOP) {
+        dispatcher.execute(() -> listener.apply(from, to));
+      } else {
+        dispatcher.execute(() -> {
+          try {
+            notify(metrics, listener, from, to);
+          } catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        });
       }
     }
   }
 
+  /**
+   * @param listener a listener notified synchronously
+   * @return the dispatcher of the listener if it still has
+   *         changes to deliver from an earlier listener executor
+   */
+  private SerialExecutor pendingDispatcher(StateListener listener) {
+    if (this.stateDispatchers.isEmpty()) {
+      return null;
+    }
+    final SerialExecutor dispatcher = this.stateDispatchers.get(listener);
+    if (dispatcher == null || !dispatcher.isIdle()) {
+      return dispatcher;
+    }
+    this.stateDispatchers.remove(listener, dispatcher);
+    return null;
+  }
+
+  /**
+   * Executes a transition and records it to the installed
+   * {@link LifeCycleMetrics} if any.
+   */
+  private void transition(State from, State to, Transition transition) throws Exception {
+    final LifeCycleMetrics metrics = AbstractLifeCycle.metrics;
+    if (metrics == LifeCycleMetrics.NOOP) {
+      transition.run();
+      return;
+    }
+    final long start = System.nanoTime();
+    try {
+      transition.run();
+    } catch (Exception | Error e) {
+      metrics.transitionFailed(this, from, to, System.nanoTime() - start, e);
+      throw e;
+    }
+    metrics.transitionCompleted(this, from, to, System.nanoTime() - start);
+  }
+
+  /**
+   * Notifies a listener and records the notification.
+   */
+  private void notify(LifeCycleMetrics metrics, StateListener listener, State from, State to)
+      throws Exception {
+    final long start = System.nanoTime();
+    try {
+      listener.stateChanged(from, to);
+    } catch (Exception | Error e) {
+      metrics.listenerFailed(this, listener, from, to, e);
+      throw e;
+    }
+    metrics.listenerNotified(this, listener, from, to, System.nanoTime() - start);
+  }
+
+  /**
+   * @return the weak reference to this object that is recorded
+   *         to the journal
+   */
+  private WeakReference<LifeCycle> journalReference() {
+    WeakReference<LifeCycle> reference = this.journalReference;
+    if (reference == null) {
+      reference = new WeakReference<>(this);
+      this.journalReference = reference;
+    }
+    return reference;
+  }
+
+  /**
+   * @param listeners the listeners from
+   *        {@link #getStateListeners()}
+   * @return a snapshot of the listeners
+   */
+  private static StateListener[] snapshot(Collection<StateListener> listeners) {
+    if (listeners instanceof StateListenerRegistry) {
+      return ((StateListenerRegistry) listeners).snapshot();
+    }
+    synchronized (listeners) {
+      return listeners.toArray(new StateListener[listeners.size()]);
+    }
+  }
+
   /**
    * Similar to {@link #initLifeCycle()} for inherited classes.
    * 
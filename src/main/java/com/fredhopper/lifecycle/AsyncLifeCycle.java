@@ -0,0 +1,71 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * An asynchronous variant of {@link LifeCycle}. Every stage of
+ * the life cycle returns immediately with a
+ * {@link CompletionStage} that completes with the new
+ * {@link State} when the stage is complete or exceptionally if
+ * the stage fails. This allows to manage many life cycle
+ * objects from a few threads.
+ *
+ * @see AbstractAsyncLifeCycle
+ * @see #of(LifeCycle, Executor)
+ */
+public interface AsyncLifeCycle extends Stateful {
+
+  /**
+   * Asynchronous variant of {@link LifeCycle#initLifeCycle()}.
+   *
+   * @return the completion of the stage
+   */
+  CompletionStage<State> initLifeCycleAsync();
+
+  /**
+   * Asynchronous variant of {@link LifeCycle#startLifeCycle()}.
+   *
+   * @return the completion of the stage
+   */
+  CompletionStage<State> startLifeCycleAsync();
+
+  /**
+   * Asynchronous variant of {@link Resumable#pause()}.
+   *
+   * @return the completion of the stage
+   */
+  CompletionStage<State> pauseAsync();
+
+  /**
+   * Asynchronous variant of {@link Resumable#resume()}.
+   *
+   * @return the completion of the stage
+   */
+  CompletionStage<State> resumeAsync();
+
+  /**
+   * Asynchronous variant of {@link LifeCycle#stopLifeCycle()}.
+   *
+   * @return the completion of the stage
+   */
+  CompletionStage<State> stopLifeCycleAsync();
+
+  /**
+   * Adapts a blocking {@link LifeCycle}, e.g. a
+   * {@link Container}, to an {@link AsyncLifeCycle} by
+   * executing its stages on an {@link Executor}.
+   *
+   * @param lifeCycle the blocking {@link LifeCycle}
+   * @param executor the {@link Executor} to execute the stages
+   *        on
+   * @return the asynchronous view of <code>lifeCycle</code>
+   */
+  static AsyncLifeCycle of(LifeCycle lifeCycle, Executor executor) {
+    if (lifeCycle instanceof AsyncLifeCycle) {
+      return (AsyncLifeCycle) lifeCycle;
+    }
+    return new ExecutorLifeCycle(lifeCycle, executor);
+  }
+
+}
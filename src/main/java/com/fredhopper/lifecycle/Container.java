@@ -1,5 +1,12 @@
 package com.fredhopper.lifecycle;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+
 /**
  * A container manages an instance of {@link LifeCycle} through
  * its stages potentially in different {@link Thread}s. It is a
@@ -12,45 +19,37 @@ package com.fredhopper.lifecycle;
 public class Container extends AbstractLifeCycle {
 
   /**
-   * A runnable that executes {@link LifeCycle#startLifeCycle()}
+   * A stage that executes {@link LifeCycle#startLifeCycle()}
    * if it is not starting nor running already.
    */
-  private class Bootstrap implements Runnable {
+  private class Bootstrap implements Callable<Void> {
     @Override
-    public void run() {
-      if (getState() != State.INITIALIZED) {
-        return;
-      }
-      try {
+    public Void call() throws Exception {
+      if (getState() == State.INITIALIZED) {
         lifeCycle.startLifeCycle();
-      } catch (Exception e) {
-        throw new RuntimeException(e);
       }
+      return null;
     }
   }
 
   /**
-   * A runnable that executes {@link LifeCycle#stopLifeCycle()}
-   * if it is not already stopping nor stopped.
+   * A stage that executes {@link LifeCycle#stopLifeCycle()} if
+   * it is not already stopping nor stopped.
    */
-  private class Shutdownstrap implements Runnable {
+  private class Shutdownstrap implements Callable<Void> {
     @Override
-    public void run() {
-      if (getState() != State.RUNNING) {
-        return;
-      }
-      try {
+    public Void call() throws Exception {
+      if (getState() == State.RUNNING) {
         lifeCycle.stopLifeCycle();
-      } catch (Exception e) {
-        throw new RuntimeException(e);
       }
+      return null;
     }
   }
 
   private final LifeCycle lifeCycle;
   private final boolean separateThreads;
-  private final Thread bootstrapThread;
-  private final Thread shutdownstrapThread;
+  private final Executor executor;
+  private final boolean shutdownHook;
 
   /**
    * By default, container uses separate threads for life cycle
@@ -70,27 +69,41 @@ public class Container extends AbstractLifeCycle {
    * @param separateThreads if {@code true}, the life cycle
    *        methods {@link #startLifeCycle()} and
    *        {@link #stopLifeCycle()} will be executed in
-   *        separate thread each.
-   * @param shutdownHook if {@code true}, a shutdown hook is
-   *        installed through
-   *        {@link Runtime#addShutdownHook(Thread)} to stop the
-   *        managed life cycle object.
+   *        separate thread each. The threads are only created
+   *        when the methods are executed.
+   * @param shutdownHook if {@code true}, the managed life
+   *        cycle object is registered with
+   *        {@link ShutdownCoordinator#getInstance()} while it
+   *        is started to be stopped when the JVM shuts down.
    */
   public Container(LifeCycle lifeCycle, final boolean separateThreads, final boolean shutdownHook) {
+    this(lifeCycle, separateThreads, null, shutdownHook);
+  }
+
+  /**
+   * C'tor. The life cycle methods {@link #startLifeCycle()} and
+   * {@link #stopLifeCycle()} are executed on the provided
+   * {@link Executor}; e.g. {@link LifeCycleExecutors#shared()}
+   * to avoid a thread per container.
+   *
+   * @param lifeCycle the managed {@link LifeCycle} object
+   * @param executor the {@link Executor} to execute the life
+   *        cycle methods on
+   * @param shutdownHook if {@code true}, the managed life
+   *        cycle object is registered with
+   *        {@link ShutdownCoordinator#getInstance()} while it
+   *        is started to be stopped when the JVM shuts down.
+   */
+  public Container(LifeCycle lifeCycle, Executor executor, final boolean shutdownHook) {
+    this(lifeCycle, true, executor, shutdownHook);
+  }
+
+  private Container(LifeCycle lifeCycle, final boolean separateThreads, Executor executor,
+      final boolean shutdownHook) {
     this.lifeCycle = lifeCycle;
     this.separateThreads = separateThreads;
-    if (separateThreads) {
-      this.bootstrapThread = new Thread(new Bootstrap(), "bootstrap-" + toString(lifeCycle));
-      this.shutdownstrapThread =
-          new Thread(new Shutdownstrap(), "shutdownstrap-" + toString(lifeCycle));
-    } else {
-      this.bootstrapThread = null;
-      this.shutdownstrapThread = null;
-    }
-    if (shutdownHook) {
-      Runtime.getRuntime()
-          .addShutdownHook(new Thread(new Shutdownstrap(), "jvm-shutdown-" + toString(lifeCycle)));
-    }
+    this.executor = executor;
+    this.shutdownHook = shutdownHook;
   }
 
   @Override
@@ -106,11 +119,14 @@ public class Container extends AbstractLifeCycle {
   @Override
   protected void doStartLifeCycle() throws Exception {
     if (this.separateThreads) {
-      this.bootstrapThread.start();
+      await(execute(new Bootstrap(), "bootstrap-"));
     } else {
       this.lifeCycle.startLifeCycle();
     }
     awaitState(State.RUNNING);
+    if (this.shutdownHook) {
+      ShutdownCoordinator.getInstance().register(this.lifeCycle);
+    }
   }
 
   @Override
@@ -126,11 +142,22 @@ public class Container extends AbstractLifeCycle {
   @Override
   protected void doStopLifeCycle() throws Exception {
     if (this.separateThreads) {
-      this.shutdownstrapThread.start();
+      await(execute(new Shutdownstrap(), "shutdownstrap-"));
     } else {
       this.lifeCycle.stopLifeCycle();
     }
     awaitState(State.STOPPED);
+    if (this.shutdownHook) {
+      // Not to keep the stopped containers reachable
+      ShutdownCoordinator.getInstance().release(this.lifeCycle);
+    }
+  }
+
+  /**
+   * @return the managed {@link LifeCycle} object
+   */
+  LifeCycle getLifeCycle() {
+    return this.lifeCycle;
   }
 
   @Override
@@ -139,24 +166,58 @@ public class Container extends AbstractLifeCycle {
   }
 
   /**
-   * Waits for the life cycle to reach the expected state
-   * waiting for 1 milli-second in between. If an
-   * {@link InterruptedException} occurs, basically it gives up
-   * the effort.
-   * 
-   * @param expectedState
-   * @throws Exception most likely if an
-   *         {@link InterruptedException} happens during waiting
+   * Waits for the managed life cycle to reach the expected
+   * state. If the managed life cycle is an
+   * {@link AbstractLifeCycle}, the waiting is driven by its
+   * changes of state; otherwise, the state is polled every 1
+   * milli-second.
    */
-  private void awaitState(State expectedState) throws Exception {
+  @Override
+  public boolean awaitState(State expectedState, long timeout, TimeUnit unit)
+      throws InterruptedException {
+    if (this.lifeCycle instanceof AbstractLifeCycle) {
+      return ((AbstractLifeCycle) this.lifeCycle).awaitState(expectedState, timeout, unit);
+    }
+    final long deadline = System.nanoTime() + unit.toNanos(timeout);
     while (this.lifeCycle.getState() != expectedState) {
-      try {
-        Thread.sleep(1);
-      } catch (InterruptedException e) {
-        // We do not know why this happened.
-        // We do not know how to handle it, either.
-        throw e;
+      if (deadline - System.nanoTime() <= 0) {
+        return false;
       }
+      Thread.sleep(1);
+    }
+    return true;
+  }
+
+  /**
+   * Executes a life cycle stage either on the
+   * {@link Executor} or on a new {@link Thread}.
+   *
+   * @param stage the life cycle stage
+   * @param threadNamePrefix the prefix of the name of the new
+   *        thread
+   * @return the completion of the stage
+   */
+  private Future<Void> execute(Callable<Void> stage, String threadNamePrefix) {
+    final FutureTask<Void> task = new FutureTask<>(stage);
+    if (this.executor == null) {
+      new Thread(task, threadNamePrefix + toString(this.lifeCycle)).start();
+    } else {
+      this.executor.execute(task);
+    }
+    return task;
+  }
+
+  /**
+   * Waits for a life cycle stage so that its failure is
+   * reported instead of waiting for a state that is never
+   * reached.
+   */
+  private static void await(Future<Void> stage) throws Exception {
+    try {
+      stage.get();
+    } catch (ExecutionException e) {
+      final Throwable cause = e.getCause();
+      throw cause instanceof Exception ? (Exception) cause : e;
     }
   }
 
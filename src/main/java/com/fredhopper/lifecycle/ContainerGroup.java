@@ -0,0 +1,320 @@
+package com.fredhopper.lifecycle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A container group manages a set of {@link LifeCycle} objects
+ * with declared dependencies among them. The life cycle stages
+ * are executed in topological <i>waves</i>: all the members of
+ * a wave only depend on members of the earlier waves and are
+ * executed in parallel on a bounded {@link Executor}. Stopping
+ * and pausing happen in the reverse order.
+ * <p>
+ * If a member fails in a wave, the remaining members of the
+ * same wave complete their stage but the later waves are not
+ * executed; the failure is re-thrown with the failures of the
+ * other members of the wave as suppressed exceptions. A failed
+ * start stops the members of the earlier waves again. A stop
+ * executes all the waves but does not stop a member while one
+ * of its dependents is not stopped, as it failed to stop or
+ * was not stopped itself; the failures are re-thrown together.
+ * A failed initialization keeps the members that are initialized; as a
+ * {@link LifeCycle} cannot go back from
+ * {@link State#INITIALIZED} to {@link State#STOPPED}, a retried
+ * initialization only initializes the members that are still
+ * {@link State#STOPPED}.
+ * <p>
+ * While the group is started, the dependencies among its
+ * members order the stop of the objects registered with
+ * {@link ShutdownCoordinator#getInstance()}; a member that is a
+ * {@link Container} stands for its managed object.
+ *
+ * @see DependencyGraph
+ */
+public class ContainerGroup extends AbstractLifeCycle {
+
+  /**
+   * A life cycle stage applied to a member of the group.
+   */
+  @FunctionalInterface
+  private interface Stage {
+    void apply(LifeCycle lifeCycle) throws Exception;
+  }
+
+  private final DependencyGraph<LifeCycle> graph = new DependencyGraph<>();
+  private final Executor executor;
+  private final int parallelism;
+  private volatile List<List<LifeCycle>> waves = Collections.emptyList();
+
+  /**
+   * By default, uses as many threads as
+   * {@link Runtime#availableProcessors()}.
+   */
+  public ContainerGroup() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param parallelism the maximum number of threads used to
+   *        execute a stage; the threads are only alive while a
+   *        stage is being executed.
+   */
+  public ContainerGroup(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Invalid parallelism: " + parallelism);
+    }
+    this.executor = null;
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param executor the {@link Executor} to execute the stages
+   *        of the members. The executor is not shut down by the
+   *        group. The thread that executes a stage of the group
+   *        waits for every wave; the executor should therefore
+   *        not be a bounded pool whose threads may themselves
+   *        wait for this group, such as a pool shared with a
+   *        nested group or with members that block on the same
+   *        pool, as the waves could never be executed.
+   */
+  public ContainerGroup(Executor executor) {
+    this.executor = executor;
+    this.parallelism = 0;
+  }
+
+  /**
+   * Adds a new member to the group. The dependencies are added
+   * as members if they are not added yet.
+   *
+   * @param lifeCycle the {@link LifeCycle} to manage
+   * @param dependencies the {@link LifeCycle} objects that
+   *        should be started before and stopped after
+   *        <code>lifeCycle</code>
+   * @return this group
+   * @throws IllegalStateException if the group is already
+   *         initialized
+   */
+  public synchronized ContainerGroup add(LifeCycle lifeCycle, LifeCycle... dependencies) {
+    if (getState() != State.STOPPED) {
+      throw new IllegalStateException("Cannot add " + lifeCycle + " to " + this + " in state "
+          + getState());
+    }
+    this.graph.add(lifeCycle, Arrays.asList(dependencies));
+    return this;
+  }
+
+  /**
+   * @return the members of the group in waves of their
+   *         dependency order as computed during
+   *         {@link #initLifeCycle()}
+   */
+  public List<List<LifeCycle>> getWaves() {
+    return this.waves;
+  }
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {
+    synchronized (this) {
+      this.waves = this.graph.waves();
+    }
+    execute(this.waves, lc -> {
+      if (lc.getState() == State.STOPPED) {
+        lc.initLifeCycle();
+      }
+    }, false);
+  }
+
+  /**
+   * If a member fails to start, the members that started are
+   * stopped in the reverse order and initialized again so that
+   * the group can be started again.
+   */
+  @Override
+  protected void doStartLifeCycle() throws Exception {
+    ShutdownCoordinator.getInstance().addDependencies(this);
+    try {
+      execute(this.waves, LifeCycle::startLifeCycle, false);
+    } catch (Exception e) {
+      ShutdownCoordinator.getInstance().removeDependencies(this);
+      try {
+        doStopLifeCycle();
+        execute(this.waves, lc -> {
+          if (lc.getState() == State.STOPPED) {
+            lc.initLifeCycle();
+          }
+        }, true);
+      } catch (Exception rollbackFailure) {
+        e.addSuppressed(rollbackFailure);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  protected void doPause() throws Exception {
+    execute(reverse(this.waves), LifeCycle::pause, false);
+  }
+
+  @Override
+  protected void doResume() throws Exception {
+    execute(this.waves, LifeCycle::resume, false);
+  }
+
+  @Override
+  protected void doStopLifeCycle() throws Exception {
+    final Map<LifeCycle, List<LifeCycle>> dependents = new IdentityHashMap<>();
+    synchronized (this) {
+      for (List<LifeCycle> wave : this.waves) {
+        for (LifeCycle lc : wave) {
+          this.graph.dependencies(lc)
+              .forEach(d -> dependents.computeIfAbsent(d, k -> new ArrayList<>()).add(lc));
+        }
+      }
+    }
+    execute(reverse(this.waves), lc -> {
+      if (lc.getState() != State.RUNNING) {
+        return;
+      }
+      for (LifeCycle dependent : dependents.getOrDefault(lc, Collections.emptyList())) {
+        final State state = dependent.getState();
+        if (state != State.STOPPED && state != State.INITIALIZED) {
+          throw new IllegalStateException("Cannot stop " + lc + " as its dependent "
+              + dependent + " is " + state);
+        }
+      }
+      lc.stopLifeCycle();
+    }, true);
+    ShutdownCoordinator.getInstance().removeDependencies(this);
+  }
+
+  /**
+   * Adds the dependencies among the members to a graph of
+   * {@link ShutdownCoordinator}.
+   *
+   * @param order the graph to add the dependencies to
+   */
+  void addDependencies(DependencyGraph<LifeCycle> order) {
+    for (List<LifeCycle> wave : this.waves) {
+      for (LifeCycle lc : wave) {
+        final List<LifeCycle> dependencies = new ArrayList<>();
+        synchronized (this) {
+          this.graph.dependencies(lc).forEach(d -> dependencies.add(managed(d)));
+        }
+        order.add(managed(lc), dependencies);
+      }
+    }
+  }
+
+  /**
+   * Executes a stage over the waves.
+   *
+   * @param stageWaves the waves in the order of execution
+   * @param stage the stage to apply to every member
+   * @param continueOnFailure if <code>true</code>, the later
+   *        waves are executed even if a member fails
+   * @throws Exception the first failure of a member
+   */
+  private void execute(List<List<LifeCycle>> stageWaves, Stage stage, boolean continueOnFailure)
+      throws Exception {
+    final ExecutorService ownExecutor =
+        this.executor == null ? Executors.newFixedThreadPool(poolSize(stageWaves),
+            LifeCycleExecutors.daemon("container-group-" + Integer.toHexString(hashCode()) + "-"))
+            : null;
+    final Executor stageExecutor = ownExecutor == null ? this.executor : ownExecutor;
+    Exception failure = null;
+    try {
+      for (List<LifeCycle> wave : stageWaves) {
+        final Exception waveFailure = execute(wave, stage, stageExecutor);
+        if (waveFailure != null) {
+          if (failure == null) {
+            failure = waveFailure;
+          } else {
+            failure.addSuppressed(waveFailure);
+          }
+          if (!continueOnFailure) {
+            break;
+          }
+        }
+      }
+    } finally {
+      if (ownExecutor != null) {
+        ownExecutor.shutdown();
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private Exception execute(List<LifeCycle> wave, Stage stage, Executor stageExecutor) {
+    final List<CompletableFuture<Void>> futures = new ArrayList<>(wave.size());
+    for (LifeCycle lc : wave) {
+      try {
+        futures.add(CompletableFuture.runAsync(() -> {
+          try {
+            stage.apply(lc);
+          } catch (Exception e) {
+            throw new CompletionException(e);
+          }
+        }, stageExecutor));
+      } catch (RejectedExecutionException e) {
+        // Reported as the failure of the member once the others are joined
+        final CompletableFuture<Void> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(e);
+        futures.add(rejected);
+      }
+    }
+    Exception failure = null;
+    for (CompletableFuture<Void> future : futures) {
+      try {
+        future.join();
+      } catch (CompletionException e) {
+        final Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause()
+            : new Exception(e.getCause());
+        if (failure == null) {
+          failure = cause;
+        } else {
+          failure.addSuppressed(cause);
+        }
+      }
+    }
+    return failure;
+  }
+
+  private int poolSize(List<List<LifeCycle>> stageWaves) {
+    int widest = 1;
+    for (List<LifeCycle> wave : stageWaves) {
+      widest = Math.max(widest, wave.size());
+    }
+    return Math.min(widest, this.parallelism);
+  }
+
+  /**
+   * @return the object that the shutdown stops for a member
+   */
+  private static LifeCycle managed(LifeCycle member) {
+    return member instanceof Container ? ((Container) member).getLifeCycle() : member;
+  }
+
+  private static List<List<LifeCycle>> reverse(List<List<LifeCycle>> waves) {
+    final List<List<LifeCycle>> reversed = new ArrayList<>(waves);
+    Collections.reverse(reversed);
+    return reversed;
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.fredhopper.lifecycle;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A directed graph of nodes and their dependencies that can be
+ * layered into topological <i>waves</i>: every node in a wave
+ * only depends on nodes of earlier waves. Nodes are compared by
+ * identity and the order of registration is preserved inside a
+ * wave.
+ *
+ * @param <T> the type of the nodes
+ */
+final class DependencyGraph<T> {
+
+  private final Map<T, Set<T>> dependencies = new IdentityHashMap<>();
+  private final List<T> nodes = new ArrayList<>();
+
+  /**
+   * Registers a node and the nodes it depends on. Dependencies
+   * that are not registered yet are registered as well.
+   *
+   * @param node the node
+   * @param nodeDependencies the nodes that <code>node</code>
+   *        depends on
+   */
+  void add(T node, Collection<? extends T> nodeDependencies) {
+    register(node).addAll(nodeDependencies);
+    nodeDependencies.forEach(this::register);
+  }
+
+  /**
+   * Adds all the nodes and dependencies of another graph.
+   *
+   * @param other the graph to add
+   */
+  void addAll(DependencyGraph<T> other) {
+    other.nodes.forEach(node -> add(node, other.dependencies.get(node)));
+  }
+
+  /**
+   * Removes a node from the graph and from the dependencies of
+   * the other nodes.
+   *
+   * @param node the node to remove
+   */
+  void remove(T node) {
+    if (this.dependencies.remove(node) == null) {
+      return;
+    }
+    this.nodes.removeIf(n -> n == node);
+    this.dependencies.values().forEach(d -> d.remove(node));
+  }
+
+  /**
+   * @param node the node
+   * @param other the other node
+   * @return <code>true</code> if <code>node</code> is or
+   *         transitively depends on <code>other</code>
+   */
+  boolean dependsOn(T node, T other) {
+    final Set<T> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+    final List<T> pending = new ArrayList<>(Collections.singletonList(node));
+    while (!pending.isEmpty()) {
+      final T next = pending.remove(pending.size() - 1);
+      if (next == other) {
+        return true;
+      }
+      final Set<T> nextDependencies = this.dependencies.get(next);
+      if (visited.add(next) && nextDependencies != null) {
+        pending.addAll(nextDependencies);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param node a node
+   * @return the nodes that <code>node</code> directly depends
+   *         on
+   */
+  Set<T> dependencies(T node) {
+    final Set<T> nodeDependencies = this.dependencies.get(node);
+    return nodeDependencies == null ? Collections.emptySet()
+        : Collections.unmodifiableSet(nodeDependencies);
+  }
+
+  /**
+   * @param node a node
+   * @return <code>true</code> if <code>node</code> neither
+   *         depends on another node nor is a dependency of
+   *         another node
+   */
+  boolean isIsolated(T node) {
+    final Set<T> nodeDependencies = this.dependencies.get(node);
+    if (nodeDependencies != null && !nodeDependencies.isEmpty()) {
+      return false;
+    }
+    return this.dependencies.values().stream().noneMatch(d -> d.contains(node));
+  }
+
+  /**
+   * @return <code>true</code> if there is no node in the graph
+   */
+  boolean isEmpty() {
+    return this.nodes.isEmpty();
+  }
+
+  /**
+   * Computes the topological waves of the graph. Every node and
+   * every dependency is visited once.
+   *
+   * @return the list of waves in the order of dependency
+   * @throws IllegalStateException if the graph contains a
+   *         cycle
+   */
+  List<List<T>> waves() {
+    final Map<T, Integer> order = new IdentityHashMap<>();
+    final Map<T, int[]> pendingDependencies = new IdentityHashMap<>();
+    final Map<T, List<T>> dependents = new IdentityHashMap<>();
+    List<T> wave = new ArrayList<>();
+    for (T node : this.nodes) {
+      order.put(node, order.size());
+      final Set<T> nodeDependencies = this.dependencies.get(node);
+      pendingDependencies.put(node, new int[] {nodeDependencies.size()});
+      nodeDependencies
+          .forEach(d -> dependents.computeIfAbsent(d, k -> new ArrayList<>()).add(node));
+      if (nodeDependencies.isEmpty()) {
+        wave.add(node);
+      }
+    }
+    final List<List<T>> waves = new ArrayList<>();
+    int visited = 0;
+    while (!wave.isEmpty()) {
+      waves.add(Collections.unmodifiableList(wave));
+      visited += wave.size();
+      final List<T> next = new ArrayList<>();
+      for (T node : wave) {
+        for (T dependent : dependents.getOrDefault(node, Collections.emptyList())) {
+          if (--pendingDependencies.get(dependent)[0] == 0) {
+            next.add(dependent);
+          }
+        }
+      }
+      next.sort(Comparator.comparing(order::get));
+      wave = next;
+    }
+    if (visited < this.nodes.size()) {
+      final List<T> remaining = new ArrayList<>();
+      this.nodes.stream().filter(n -> pendingDependencies.get(n)[0] > 0).forEach(remaining::add);
+      throw new IllegalStateException("Cyclic dependency among " + remaining);
+    }
+    return Collections.unmodifiableList(waves);
+  }
+
+  private Set<T> register(T node) {
+    Set<T> nodeDependencies = this.dependencies.get(node);
+    if (nodeDependencies == null) {
+      nodeDependencies = Collections.newSetFromMap(new IdentityHashMap<>());
+      this.dependencies.put(node, nodeDependencies);
+      this.nodes.add(node);
+    }
+    return nodeDependencies;
+  }
+
+}
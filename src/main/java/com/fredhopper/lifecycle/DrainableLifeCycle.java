@@ -0,0 +1,204 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A base implementation structure for {@link LifeCycle} objects
+ * that serve work, e.g. requests, and drain it gracefully. The
+ * work is tracked by {@link #tryEnter()} or
+ * {@link #enter(long, TimeUnit)} and {@link #exit()}:
+ *
+ * <pre>
+ * if (!server.tryEnter()) {
+ *   return reject(request);
+ * }
+ * try {
+ *   return serve(request);
+ * } finally {
+ *   server.exit();
+ * }
+ * </pre>
+ *
+ * New work is accepted only while the object is
+ * {@link State#RUNNING} and not draining. {@link #pause()} and
+ * {@link #stopLifeCycle()} first stop accepting new work and
+ * wait until the work in flight completes or the drain timeout
+ * elapses; then they execute {@link #doPauseAfterDrain()} and
+ * {@link #doStopAfterDrain()}. The work in flight is counted on
+ * a striped {@link LongAdder} so that entering and exiting do
+ * not contend.
+ */
+public abstract class DrainableLifeCycle extends AbstractLifeCycle {
+
+  /**
+   * The default drain timeout: {@value} milli-seconds.
+   */
+  public static final long DEFAULT_DRAIN_TIMEOUT_MILLIS = 30_000;
+
+  private final LongAdder inFlight = new LongAdder();
+  private final Object drainMonitor = new Object();
+  private volatile boolean draining;
+  private volatile long drainTimeoutNanos =
+      TimeUnit.MILLISECONDS.toNanos(DEFAULT_DRAIN_TIMEOUT_MILLIS);
+
+  /**
+   * Sets the maximum time that {@link #pause()} and
+   * {@link #stopLifeCycle()} wait for the work in flight.
+   *
+   * @param timeout the drain timeout
+   * @param unit the unit of <code>timeout</code>
+   */
+  public void setDrainTimeout(long timeout, TimeUnit unit) {
+    this.drainTimeoutNanos = unit.toNanos(timeout);
+  }
+
+  /**
+   * Enters a unit of work if the object accepts new work. Every
+   * successful entry must be followed by {@link #exit()}.
+   *
+   * @return <code>true</code> if the work is accepted and
+   *         <code>false</code> if it is rejected
+   */
+  public boolean tryEnter() {
+    if (this.draining || getState() != State.RUNNING) {
+      return false;
+    }
+    this.inFlight.increment();
+    // A drain that started concurrently may have missed the increment
+    if (this.draining || getState() != State.RUNNING) {
+      exit();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Enters a unit of work and waits while the object is paused
+   * or starting. Every successful entry must be followed by
+   * {@link #exit()}.
+   *
+   * @param timeout the maximum time to wait
+   * @param unit the unit of <code>timeout</code>
+   * @return <code>true</code> if the work is accepted and
+   *         <code>false</code> if the timeout elapsed or the
+   *         object is stopping or stopped
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public boolean enter(long timeout, TimeUnit unit) throws InterruptedException {
+    long remaining = unit.toNanos(timeout);
+    final long deadline = System.nanoTime() + remaining;
+    synchronized (this.drainMonitor) {
+      while (!tryEnter()) {
+        final State state = getState();
+        if (remaining <= 0 || state == State.STOPPING || state == State.STOPPED) {
+          return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this.drainMonitor, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Exits a unit of work entered with {@link #tryEnter()} or
+   * {@link #enter(long, TimeUnit)}.
+   */
+  public void exit() {
+    this.inFlight.decrement();
+    if (this.draining && this.inFlight.sum() == 0) {
+      synchronized (this.drainMonitor) {
+        this.drainMonitor.notifyAll();
+      }
+    }
+  }
+
+  /**
+   * @return the number of units of work in flight
+   */
+  public long getInFlight() {
+    return this.inFlight.sum();
+  }
+
+  /**
+   * Similar to {@link #pause()} for inherited classes; executed
+   * after the work in flight is drained.
+   *
+   * @throws Exception See {@link #pause()}
+   */
+  protected void doPauseAfterDrain() throws Exception {}
+
+  /**
+   * Similar to {@link #stopLifeCycle()} for inherited classes;
+   * executed after the work in flight is drained.
+   *
+   * @throws Exception See {@link #stopLifeCycle()}
+   */
+  protected abstract void doStopAfterDrain() throws Exception;
+
+  @Override
+  protected final void doPause() throws Exception {
+    try {
+      drain();
+      doPauseAfterDrain();
+    } catch (Exception | Error e) {
+      // The pause failed or was interrupted: accept work again
+      this.draining = false;
+      signal();
+      throw e;
+    }
+  }
+
+  @Override
+  protected final void doStopLifeCycle() throws Exception {
+    drain();
+    doStopAfterDrain();
+  }
+
+  /**
+   * Accepts new work again when the state becomes
+   * {@link State#RUNNING} and wakes up the threads waiting in
+   * {@link #enter(long, TimeUnit)} on every change of state.
+   */
+  @Override
+  protected void changeState(State from, State to) throws Exception {
+    if (to == State.RUNNING) {
+      this.draining = false;
+    }
+    try {
+      super.changeState(from, to);
+    } finally {
+      signal();
+    }
+  }
+
+  /**
+   * Stops accepting new work and waits until the work in flight
+   * completes or the drain timeout elapses; the work still in
+   * flight after the timeout is abandoned.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  private void drain() throws InterruptedException {
+    this.draining = true;
+    long remaining = this.drainTimeoutNanos;
+    final long deadline = System.nanoTime() + remaining;
+    synchronized (this.drainMonitor) {
+      while (this.inFlight.sum() > 0) {
+        if (remaining <= 0) {
+          return;
+        }
+        TimeUnit.NANOSECONDS.timedWait(this.drainMonitor, remaining);
+        remaining = deadline - System.nanoTime();
+      }
+    }
+  }
+
+  private void signal() {
+    synchronized (this.drainMonitor) {
+      this.drainMonitor.notifyAll();
+    }
+  }
+
+}
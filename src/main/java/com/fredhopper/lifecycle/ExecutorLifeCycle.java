@@ -0,0 +1,84 @@
+package com.fredhopper.lifecycle;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+
+/**
+ * An {@link AsyncLifeCycle} that executes the stages of a
+ * blocking {@link LifeCycle} on an {@link Executor}.
+ *
+ * @see AsyncLifeCycle#of(LifeCycle, Executor)
+ */
+final class ExecutorLifeCycle implements AsyncLifeCycle {
+
+  /**
+   * A blocking stage of a {@link LifeCycle}.
+   */
+  @FunctionalInterface
+  private interface Stage {
+    void apply() throws Exception;
+  }
+
+  private final LifeCycle lifeCycle;
+  private final Executor executor;
+
+  ExecutorLifeCycle(LifeCycle lifeCycle, Executor executor) {
+    this.lifeCycle = lifeCycle;
+    this.executor = executor;
+  }
+
+  @Override
+  public State getState() {
+    return this.lifeCycle.getState();
+  }
+
+  @Override
+  public Collection<StateListener> getStateListeners() {
+    return this.lifeCycle.getStateListeners();
+  }
+
+  @Override
+  public CompletionStage<State> initLifeCycleAsync() {
+    return execute(this.lifeCycle::initLifeCycle);
+  }
+
+  @Override
+  public CompletionStage<State> startLifeCycleAsync() {
+    return execute(this.lifeCycle::startLifeCycle);
+  }
+
+  @Override
+  public CompletionStage<State> pauseAsync() {
+    return execute(this.lifeCycle::pause);
+  }
+
+  @Override
+  public CompletionStage<State> resumeAsync() {
+    return execute(this.lifeCycle::resume);
+  }
+
+  @Override
+  public CompletionStage<State> stopLifeCycleAsync() {
+    return execute(this.lifeCycle::stopLifeCycle);
+  }
+
+  @Override
+  public String toString() {
+    return "Async[" + this.lifeCycle + "]";
+  }
+
+  private CompletionStage<State> execute(Stage stage) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        stage.apply();
+      } catch (Exception e) {
+        throw new CompletionException(e);
+      }
+      return this.lifeCycle.getState();
+    }, this.executor);
+  }
+
+}
@@ -0,0 +1,27 @@
+package com.fredhopper.lifecycle;
+
+/**
+ * The aggregated health of the components registered to a
+ * {@link HealthAggregator}.
+ */
+public enum Health {
+
+  /**
+   * All the components are {@link State#RUNNING}.
+   */
+  UP,
+
+  /**
+   * All the critical components are {@link State#RUNNING} but
+   * some other component is not.
+   */
+  DEGRADED,
+
+  /**
+   * Some critical component is not {@link State#RUNNING}.
+   */
+  DOWN,
+
+  ;
+
+}
@@ -0,0 +1,179 @@
+package com.fredhopper.lifecycle;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Aggregates the health of {@link Stateful} components from
+ * their changes of state. The aggregator subscribes a
+ * {@link SynchronousStateListener} to every registered
+ * component and updates the aggregate counters on every
+ * change in constant time. The {@link HealthSnapshot} is only
+ * built again by the first probe after a change, from the
+ * recorded states; a probe never visits the components:
+ * <ul>
+ * <li>{@link HealthSnapshot#isReady()}: all the critical
+ * components are {@link State#RUNNING}.
+ * <li>{@link HealthSnapshot#isLive()}: no critical component is
+ * {@link State#STOPPING} or {@link State#STOPPED} after it was
+ * started.
+ * <li>{@link HealthSnapshot#getStatus()}: {@link Health#UP} if
+ * all the components are {@link State#RUNNING},
+ * {@link Health#DOWN} if not ready and {@link Health#DEGRADED}
+ * otherwise.
+ * </ul>
+ *
+ * @see HealthEndpoint
+ */
+public final class HealthAggregator {
+
+  private final class Member implements SynchronousStateListener {
+
+    private final String name;
+    private final Stateful component;
+    private final boolean critical;
+    private State state;
+    private boolean started;
+
+    Member(String name, Stateful component, boolean critical) {
+      this.name = name;
+      this.component = component;
+      this.critical = critical;
+    }
+
+    @Override
+    public void stateChanged(State oldState, State newState) {
+      update(this, newState);
+    }
+
+    boolean isRunning() {
+      return this.state == State.RUNNING;
+    }
+
+    boolean isDown() {
+      return this.started && (this.state == State.STOPPING || this.state == State.STOPPED);
+    }
+  }
+
+  private final Map<String, Member> members = new LinkedHashMap<>();
+  private int criticalNotRunning;
+  private int otherNotRunning;
+  private int criticalDown;
+  // null if a change happened since the last probe
+  private volatile HealthSnapshot snapshot;
+
+  /**
+   * Registers a critical component.
+   *
+   * @param name the unique name of the component
+   * @param component the component
+   * @return this aggregator
+   * @see #register(String, Stateful, boolean)
+   */
+  public HealthAggregator register(String name, Stateful component) {
+    return register(name, component, true);
+  }
+
+  /**
+   * Registers a component and subscribes to its changes of
+   * state.
+   *
+   * @param name the unique name of the component
+   * @param component the component
+   * @param critical if <code>true</code>, the readiness depends
+   *        on the component; otherwise, the component can only
+   *        degrade the health
+   * @return this aggregator
+   * @throws IllegalArgumentException if the name is already
+   *         registered or the component does not accept a
+   *         {@link StateListener}
+   */
+  public synchronized HealthAggregator register(String name, Stateful component,
+      boolean critical) {
+    if (this.members.containsKey(name)) {
+      throw new IllegalArgumentException("Component already registered: " + name);
+    }
+    final Member member = new Member(name, component, critical);
+    try {
+      component.getStateListeners().add(member);
+    } catch (UnsupportedOperationException e) {
+      throw new IllegalArgumentException("Cannot subscribe to the state of " + component, e);
+    }
+    this.members.put(name, member);
+    // The state is read after the subscription not to miss a change
+    member.state = component.getState();
+    member.started = member.isRunning();
+    count(member, 1);
+    this.snapshot = null;
+    return this;
+  }
+
+  /**
+   * Unregisters a component and unsubscribes from its changes
+   * of state.
+   *
+   * @param name the name of the component
+   */
+  public synchronized void unregister(String name) {
+    final Member member = this.members.remove(name);
+    if (member == null) {
+      return;
+    }
+    member.component.getStateListeners().remove(member);
+    count(member, -1);
+    this.snapshot = null;
+  }
+
+  /**
+   * @return the latest {@link HealthSnapshot}
+   */
+  public HealthSnapshot getSnapshot() {
+    HealthSnapshot latest = this.snapshot;
+    if (latest == null) {
+      synchronized (this) {
+        latest = this.snapshot;
+        if (latest == null) {
+          latest = snapshot();
+          this.snapshot = latest;
+        }
+      }
+    }
+    return latest;
+  }
+
+  private synchronized void update(Member member, State state) {
+    if (this.members.get(member.name) != member || member.state == state) {
+      return;
+    }
+    count(member, -1);
+    member.state = state;
+    member.started |= member.isRunning();
+    count(member, 1);
+    this.snapshot = null;
+  }
+
+  private void count(Member member, int delta) {
+    if (!member.isRunning()) {
+      if (member.critical) {
+        this.criticalNotRunning += delta;
+      } else {
+        this.otherNotRunning += delta;
+      }
+    }
+    if (member.critical && member.isDown()) {
+      this.criticalDown += delta;
+    }
+  }
+
+  private HealthSnapshot snapshot() {
+    final Map<String, State> components = new LinkedHashMap<>();
+    this.members.forEach((name, member) -> components.put(name, member.state));
+    final boolean ready = this.criticalNotRunning == 0;
+    final Health status =
+        !ready ? Health.DOWN : this.otherNotRunning == 0 ? Health.UP : Health.DEGRADED;
+    return new HealthSnapshot(status, ready, this.criticalDown == 0,
+        Collections.unmodifiableMap(components));
+  }
+
+}
@@ -0,0 +1,104 @@
+package com.fredhopper.lifecycle;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Predicate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A minimal HTTP endpoint on the JDK {@link HttpServer} that
+ * serves the {@link HealthSnapshot} of a
+ * {@link HealthAggregator} as JSON:
+ * <ul>
+ * <li><code>/health</code>: <code>200</code> unless
+ * {@link Health#DOWN}.
+ * <li><code>/health/ready</code>: <code>200</code> if ready.
+ * <li><code>/health/live</code>: <code>200</code> if live.
+ * </ul>
+ * Otherwise, the status code is <code>503</code>; any other path
+ * is <code>404</code>.
+ *
+ * <pre>
+ * HealthEndpoint endpoint = new HealthEndpoint(aggregator, 8081);
+ * endpoint.initLifeCycle();
+ * endpoint.startLifeCycle();
+ * </pre>
+ */
+public class HealthEndpoint extends AbstractLifeCycle {
+
+  private final HealthAggregator aggregator;
+  private final InetSocketAddress address;
+  private HttpServer server;
+
+  /**
+   * C'tor.
+   *
+   * @param aggregator the {@link HealthAggregator} to serve
+   * @param port the port to listen to or <code>0</code> for an
+   *        ephemeral port
+   */
+  public HealthEndpoint(HealthAggregator aggregator, int port) {
+    this(aggregator, new InetSocketAddress(port));
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param aggregator the {@link HealthAggregator} to serve
+   * @param address the address to listen to
+   */
+  public HealthEndpoint(HealthAggregator aggregator, InetSocketAddress address) {
+    this.aggregator = aggregator;
+    this.address = address;
+  }
+
+  /**
+   * @return the port the endpoint listens to once initialized
+   */
+  public int getPort() {
+    return this.server.getAddress().getPort();
+  }
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {
+    this.server = HttpServer.create(this.address, 0);
+    this.server.createContext("/health", e -> respond(e, s -> s.getStatus() != Health.DOWN));
+    this.server.createContext("/health/ready", e -> respond(e, HealthSnapshot::isReady));
+    this.server.createContext("/health/live", e -> respond(e, HealthSnapshot::isLive));
+  }
+
+  @Override
+  protected void doStartLifeCycle() throws Exception {
+    this.server.start();
+  }
+
+  @Override
+  protected void doStopLifeCycle() throws Exception {
+    this.server.stop(0);
+  }
+
+  private void respond(HttpExchange exchange, Predicate<HealthSnapshot> healthy)
+      throws IOException {
+    try {
+      // A context also matches the paths that it prefixes
+      if (!exchange.getRequestURI().getPath().equals(exchange.getHttpContext().getPath())) {
+        exchange.sendResponseHeaders(404, -1);
+        return;
+      }
+      final HealthSnapshot snapshot = this.aggregator.getSnapshot();
+      final byte[] body = snapshot.toJson().getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().set("Content-Type", "application/json");
+      exchange.sendResponseHeaders(healthy.test(snapshot) ? 200 : 503, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+}
@@ -0,0 +1,101 @@
+package com.fredhopper.lifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+/**
+ * An immutable snapshot of the health of the components
+ * registered to a {@link HealthAggregator}.
+ */
+public final class HealthSnapshot {
+
+  private final Health status;
+  private final boolean ready;
+  private final boolean live;
+  private final Map<String, State> components;
+  private volatile String json;
+
+  /**
+   * C'tor.
+   *
+   * @param status the aggregated health
+   * @param ready if all the critical components are
+   *        {@link State#RUNNING}
+   * @param live if no critical component went down after it
+   *        was started
+   * @param components the unmodifiable states of the components
+   *        by their name
+   */
+  HealthSnapshot(Health status, boolean ready, boolean live, Map<String, State> components) {
+    this.status = status;
+    this.ready = ready;
+    this.live = live;
+    this.components = components;
+  }
+
+  /**
+   * @return the aggregated health
+   */
+  public Health getStatus() {
+    return status;
+  }
+
+  /**
+   * @return <code>true</code> if all the critical components
+   *         are {@link State#RUNNING}
+   */
+  public boolean isReady() {
+    return ready;
+  }
+
+  /**
+   * @return <code>true</code> if no critical component is
+   *         {@link State#STOPPING} or {@link State#STOPPED} after
+   *         it was started
+   */
+  public boolean isLive() {
+    return live;
+  }
+
+  /**
+   * @return the states of the components by their name in the
+   *         order of registration
+   */
+  public Map<String, State> getComponents() {
+    return components;
+  }
+
+  /**
+   * @return the snapshot as a JSON object; computed once
+   */
+  public String toJson() {
+    String json = this.json;
+    if (json == null) {
+      final StringBuilder sb = new StringBuilder();
+      try {
+        sb.append("{\"status\": \"").append(status.name()).append("\", \"ready\": ").append(ready)
+            .append(", \"live\": ").append(live).append(", \"components\": {");
+        String separator = "";
+        for (Map.Entry<String, State> component : components.entrySet()) {
+          sb.append(separator);
+          Json.quote(sb, component.getKey());
+          sb.append(": \"").append(component.getValue().name()).append('"');
+          separator = ", ";
+        }
+        sb.append("}}\n");
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      this.json = json = sb.toString();
+    }
+    return json;
+  }
+
+  @Override
+  public String toString() {
+    return status + (ready ? " ready" : " not ready") + (live ? " live " : " not live ")
+        + components;
+  }
+
+}
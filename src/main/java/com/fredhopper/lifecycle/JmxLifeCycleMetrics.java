@@ -0,0 +1,283 @@
+package com.fredhopper.lifecycle;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * A {@link LifeCycleMetrics} that exposes a {@link LifeCycleMXBean}
+ * per {@link LifeCycle} object under {@value #DOMAIN}. The bean of
+ * an object is registered at its first recorded event with the
+ * name <code>com.fredhopper.lifecycle:type=LifeCycle,name=&lt;object&gt;,id=&lt;n&gt;</code>
+ * where <code>n</code> tells apart the objects with the same
+ * {@link Object#toString()}. The metrics refer to the objects
+ * weakly: the bean of an object is unregistered with
+ * {@link #unregister(LifeCycle)} or, at the latest, at the
+ * first recorded event after the object is garbage collected.
+ * A failure to register a bean is reported to the
+ * {@link Thread.UncaughtExceptionHandler} of the recording
+ * thread; the metrics are still recorded.
+ *
+ * <pre>
+ * AbstractLifeCycle.setMetrics(new JmxLifeCycleMetrics());
+ * </pre>
+ */
+public final class JmxLifeCycleMetrics implements LifeCycleMetrics {
+
+  /**
+   * The domain of the registered beans: {@value}.
+   */
+  public static final String DOMAIN = "com.fredhopper.lifecycle";
+
+  private final MBeanServer server;
+  private final ConcurrentMap<Key, Component> components = new ConcurrentHashMap<>();
+  private final ReferenceQueue<LifeCycle> discarded = new ReferenceQueue<>();
+  private final AtomicLong ids = new AtomicLong();
+
+  /**
+   * C'tor that registers to the platform {@link MBeanServer}.
+   */
+  public JmxLifeCycleMetrics() {
+    this(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param server the {@link MBeanServer} to register to
+   */
+  public JmxLifeCycleMetrics(MBeanServer server) {
+    this.server = server;
+  }
+
+  @Override
+  public void transitionCompleted(LifeCycle lifeCycle, State from, State to, long nanos) {
+    final Component component = component(lifeCycle);
+    component.transitions.increment();
+    if (from == State.STOPPED) {
+      component.lastInitNanos = nanos;
+    } else if (from == State.INITIALIZED) {
+      component.lastStartNanos = nanos;
+    } else if (to == State.PAUSED) {
+      component.lastPauseNanos = nanos;
+    } else if (from == State.PAUSED) {
+      component.lastResumeNanos = nanos;
+    } else {
+      component.lastStopNanos = nanos;
+    }
+  }
+
+  @Override
+  public void transitionFailed(LifeCycle lifeCycle, State from, State to, long nanos,
+      Throwable failure) {
+    component(lifeCycle).transitionFailures.increment();
+  }
+
+  @Override
+  public void listenerNotified(LifeCycle lifeCycle, StateListener listener, State from,
+      State to, long nanos) {
+    final Component component = component(lifeCycle);
+    component.listenerNotifications.increment();
+    component.listenerNanos.add(nanos);
+    component.maxListenerNanos.accumulateAndGet(nanos, Math::max);
+  }
+
+  @Override
+  public void listenerFailed(LifeCycle lifeCycle, StateListener listener, State from, State to,
+      Throwable failure) {
+    component(lifeCycle).listenerFailures.increment();
+  }
+
+  /**
+   * @param lifeCycle the {@link LifeCycle} object
+   * @return the name of the registered bean of
+   *         <code>lifeCycle</code> or <code>null</code> if none
+   */
+  public ObjectName getObjectName(LifeCycle lifeCycle) {
+    final Component component = this.components.get(new Key(lifeCycle, null));
+    return component == null ? null : component.name;
+  }
+
+  /**
+   * Unregisters the bean of a {@link LifeCycle} object and
+   * discards its metrics.
+   *
+   * @param lifeCycle the {@link LifeCycle} object
+   */
+  public void unregister(LifeCycle lifeCycle) {
+    unregister(this.components.remove(new Key(lifeCycle, null)));
+  }
+
+  private void unregister(Component component) {
+    final ObjectName name = component == null ? null : component.name;
+    if (name == null) {
+      return;
+    }
+    try {
+      this.server.unregisterMBean(name);
+    } catch (JMException e) {
+      // Already unregistered
+    }
+  }
+
+  private Component component(LifeCycle lifeCycle) {
+    expungeDiscarded();
+    final Component component = this.components.get(new Key(lifeCycle, null));
+    if (component != null) {
+      return component;
+    }
+    final Component created = new Component(new Key(lifeCycle, this.discarded));
+    final Component existing = this.components.putIfAbsent(created.key, created);
+    if (existing != null) {
+      return existing;
+    }
+    register(lifeCycle, created);
+    // Unregistered concurrently
+    if (this.components.get(created.key) != created) {
+      unregister(created);
+    }
+    return created;
+  }
+
+  private void register(LifeCycle lifeCycle, Component component) {
+    try {
+      final ObjectName name = new ObjectName(DOMAIN + ":type=LifeCycle,name="
+          + ObjectName.quote(lifeCycle.toString()) + ",id=" + this.ids.incrementAndGet());
+      this.server.registerMBean(component, name);
+      component.name = name;
+    } catch (JMException e) {
+      // The metrics are still recorded without being exposed
+      final Thread thread = Thread.currentThread();
+      thread.getUncaughtExceptionHandler().uncaughtException(thread,
+          new IllegalStateException("Cannot register bean of " + lifeCycle, e));
+    }
+  }
+
+  private void expungeDiscarded() {
+    for (Reference<? extends LifeCycle> key; (key = this.discarded.poll()) != null;) {
+      unregister(this.components.remove(key));
+    }
+  }
+
+  /**
+   * A weak identity key of a {@link LifeCycle} object.
+   */
+  private static final class Key extends WeakReference<LifeCycle> {
+
+    private final int hash;
+
+    Key(LifeCycle lifeCycle, ReferenceQueue<LifeCycle> queue) {
+      super(lifeCycle, queue);
+      this.hash = System.identityHashCode(lifeCycle);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      final LifeCycle lifeCycle = get();
+      return lifeCycle != null && lifeCycle == ((Key) obj).get();
+    }
+  }
+
+  private static final class Component implements LifeCycleMXBean {
+
+    private final Key key;
+    private volatile ObjectName name;
+    private volatile long lastInitNanos = -1;
+    private volatile long lastStartNanos = -1;
+    private volatile long lastPauseNanos = -1;
+    private volatile long lastResumeNanos = -1;
+    private volatile long lastStopNanos = -1;
+    private final LongAdder transitions = new LongAdder();
+    private final LongAdder transitionFailures = new LongAdder();
+    private final LongAdder listenerNotifications = new LongAdder();
+    private final LongAdder listenerNanos = new LongAdder();
+    private final AtomicLong maxListenerNanos = new AtomicLong();
+    private final LongAdder listenerFailures = new LongAdder();
+
+    Component(Key key) {
+      this.key = key;
+    }
+
+    @Override
+    public String getState() {
+      final LifeCycle lifeCycle = this.key.get();
+      return lifeCycle == null ? null : String.valueOf(lifeCycle.getState());
+    }
+
+    @Override
+    public long getLastInitNanos() {
+      return this.lastInitNanos;
+    }
+
+    @Override
+    public long getLastStartNanos() {
+      return this.lastStartNanos;
+    }
+
+    @Override
+    public long getLastPauseNanos() {
+      return this.lastPauseNanos;
+    }
+
+    @Override
+    public long getLastResumeNanos() {
+      return this.lastResumeNanos;
+    }
+
+    @Override
+    public long getLastStopNanos() {
+      return this.lastStopNanos;
+    }
+
+    @Override
+    public long getTransitions() {
+      return this.transitions.sum();
+    }
+
+    @Override
+    public long getTransitionFailures() {
+      return this.transitionFailures.sum();
+    }
+
+    @Override
+    public long getListenerNotifications() {
+      return this.listenerNotifications.sum();
+    }
+
+    @Override
+    public long getListenerNanos() {
+      return this.listenerNanos.sum();
+    }
+
+    @Override
+    public long getMaxListenerNanos() {
+      return this.maxListenerNanos.get();
+    }
+
+    @Override
+    public long getListenerFailures() {
+      return this.listenerFailures.sum();
+    }
+  }
+
+}
@@ -0,0 +1,34 @@
+package com.fredhopper.lifecycle;
+
+import java.io.IOException;
+
+/**
+ * Helpers to write the JSON representations of the diagnostics.
+ */
+final class Json {
+
+  private Json() {}
+
+  /**
+   * Writes a string as a JSON string literal.
+   *
+   * @param out the destination
+   * @param value the string
+   * @throws IOException if <code>out</code> fails
+   */
+  static void quote(Appendable out, String value) throws IOException {
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c < 0x20) {
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
+
+}
@@ -0,0 +1,195 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link LifeCycle} that starts a managed life cycle object on
+ * demand. The managed object is initialized with this one, but
+ * is started only at the first {@link #use()} after this one is
+ * {@link State#RUNNING}; concurrent first uses start it once.
+ * Optionally, the managed object is paused after it has not
+ * been used for an idle timeout and is resumed at the next use.
+ * <p>
+ * A rarely used component can then be managed by a
+ * {@link Container} or a {@link ContainerGroup} without slowing
+ * down the start of the application:
+ *
+ * <pre>
+ * LazyLifeCycle&lt;ReportService&gt; reports = new LazyLifeCycle&lt;&gt;(new ReportService());
+ * group.add(reports, database);
+ * ...
+ * reports.use().generate();
+ * </pre>
+ *
+ * The idle timeout should be used with objects that pause
+ * gracefully, e.g. a {@link DrainableLifeCycle}, as the managed
+ * object may still be in use when it is paused. A failure to
+ * pause an idle object is reported to the
+ * {@link Thread.UncaughtExceptionHandler} of the pausing thread.
+ */
+public class LazyLifeCycle<T extends LifeCycle> extends AbstractLifeCycle {
+
+  private final T lifeCycle;
+  private final long idleTimeoutNanos;
+  private final ScheduledExecutorService scheduler;
+  private final Object startMonitor = new Object();
+  private volatile long lastUse;
+  private ScheduledFuture<?> idleCheck;
+
+  /**
+   * C'tor without an idle timeout.
+   *
+   * @param lifeCycle the managed life cycle object
+   */
+  public LazyLifeCycle(T lifeCycle) {
+    this(lifeCycle, 0, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * C'tor that checks the idle timeout on
+   * {@link LifeCycleExecutors#scheduler()}.
+   *
+   * @param lifeCycle the managed life cycle object
+   * @param idleTimeout the time after the last use to pause the
+   *        managed object or <code>0</code> to never pause it
+   * @param unit the unit of <code>idleTimeout</code>
+   */
+  public LazyLifeCycle(T lifeCycle, long idleTimeout, TimeUnit unit) {
+    this(lifeCycle, idleTimeout, unit, LifeCycleExecutors.scheduler());
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param lifeCycle the managed life cycle object
+   * @param idleTimeout the time after the last use to pause the
+   *        managed object or <code>0</code> to never pause it
+   * @param unit the unit of <code>idleTimeout</code>
+   * @param scheduler the {@link ScheduledExecutorService} to
+   *        check the idle timeout on; the managed object is
+   *        paused on {@link LifeCycleExecutors#shared()}
+   */
+  public LazyLifeCycle(T lifeCycle, long idleTimeout, TimeUnit unit,
+      ScheduledExecutorService scheduler) {
+    this.lifeCycle = lifeCycle;
+    this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+    this.scheduler = scheduler;
+  }
+
+  /**
+   * Starts the managed object if it is not started yet or
+   * resumes it if it is paused.
+   *
+   * @return the running managed object
+   * @throws IllegalStateException if this object is not
+   *         {@link State#RUNNING} or the managed object cannot be
+   *         started
+   */
+  public T use() {
+    if (this.idleTimeoutNanos > 0) {
+      this.lastUse = System.nanoTime();
+    }
+    if (this.lifeCycle.getState() == State.RUNNING) {
+      return this.lifeCycle;
+    }
+    synchronized (this.startMonitor) {
+      if (getState() != State.RUNNING) {
+        throw new IllegalStateException("Cannot use " + this.lifeCycle + " of " + this + " in "
+            + getState());
+      }
+      final State state = this.lifeCycle.getState();
+      try {
+        if (state == State.INITIALIZED) {
+          this.lifeCycle.startLifeCycle();
+        } else if (state == State.PAUSED) {
+          this.lifeCycle.resume();
+        } else if (state != State.RUNNING) {
+          throw new IllegalStateException("Cannot start " + this.lifeCycle + " in " + state);
+        }
+      } catch (RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IllegalStateException("Cannot start " + this.lifeCycle, e);
+      }
+      this.lastUse = System.nanoTime();
+    }
+    return this.lifeCycle;
+  }
+
+  /**
+   * @return the managed object without starting it
+   */
+  public T getLifeCycle() {
+    return this.lifeCycle;
+  }
+
+  @Override
+  public String toString() {
+    return "LazyLifeCycle[" + this.lifeCycle + "]";
+  }
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {
+    this.lifeCycle.initLifeCycle();
+  }
+
+  @Override
+  protected void doStartLifeCycle() throws Exception {
+    if (this.idleTimeoutNanos > 0) {
+      final long period = Math.max(this.idleTimeoutNanos / 2, TimeUnit.MILLISECONDS.toNanos(1));
+      this.idleCheck = this.scheduler.scheduleWithFixedDelay(
+          () -> LifeCycleExecutors.shared().execute(this::pauseIfIdle), period, period,
+          TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /**
+   * Pauses the managed object if it is running.
+   */
+  @Override
+  protected void doPause() throws Exception {
+    synchronized (this.startMonitor) {
+      if (this.lifeCycle.getState() == State.RUNNING) {
+        this.lifeCycle.pause();
+      }
+    }
+  }
+
+  /**
+   * Stops the managed object if it was started; otherwise, the
+   * managed object remains {@link State#INITIALIZED}.
+   */
+  @Override
+  protected void doStopLifeCycle() throws Exception {
+    if (this.idleCheck != null) {
+      this.idleCheck.cancel(false);
+      this.idleCheck = null;
+    }
+    synchronized (this.startMonitor) {
+      if (this.lifeCycle.getState() == State.PAUSED) {
+        this.lifeCycle.resume();
+      }
+      if (this.lifeCycle.getState() == State.RUNNING) {
+        this.lifeCycle.stopLifeCycle();
+      }
+    }
+  }
+
+  private void pauseIfIdle() {
+    synchronized (this.startMonitor) {
+      if (getState() != State.RUNNING || this.lifeCycle.getState() != State.RUNNING
+          || System.nanoTime() - this.lastUse < this.idleTimeoutNanos) {
+        return;
+      }
+      try {
+        this.lifeCycle.pause();
+      } catch (Exception e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    }
+  }
+
+}
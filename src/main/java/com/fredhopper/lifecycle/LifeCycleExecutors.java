@@ -0,0 +1,114 @@
+package com.fredhopper.lifecycle;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factory of {@link Executor} instances that can be shared by
+ * many {@link Container} objects to execute their life cycle
+ * stages without owning a thread each.
+ *
+ * @see Container#Container(LifeCycle, Executor, boolean)
+ */
+public final class LifeCycleExecutors {
+
+  /**
+   * The time an idle thread of {@link #shared()} is kept alive:
+   * {@value} seconds.
+   */
+  private static final long SHARED_KEEP_ALIVE_SECONDS = 30;
+
+  private static final class Shared {
+    static final ExecutorService INSTANCE = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+        SHARED_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS, new SynchronousQueue<>(),
+        daemon("lifecycle-"));
+  }
+
+  private static final class Scheduler {
+    static final ScheduledExecutorService INSTANCE = createScheduler();
+  }
+
+  private static final class Virtual {
+    static final Executor INSTANCE = createVirtualThreadExecutor();
+  }
+
+  private LifeCycleExecutors() {}
+
+  /**
+   * A process-wide {@link Executor} of daemon threads that are
+   * created on demand and are discarded after being idle for
+   * {@value #SHARED_KEEP_ALIVE_SECONDS} seconds.
+   *
+   * @return the shared {@link Executor}
+   */
+  public static Executor shared() {
+    return Shared.INSTANCE;
+  }
+
+  /**
+   * An {@link Executor} that starts a new virtual thread per
+   * task if the JVM supports virtual threads (Java 21 or
+   * later). Otherwise, falls back to {@link #shared()}.
+   *
+   * @return the virtual thread {@link Executor}
+   */
+  public static Executor virtualThreads() {
+    return Virtual.INSTANCE;
+  }
+
+  /**
+   * A process-wide {@link ScheduledExecutorService} of a single
+   * daemon thread for short periodic tasks such as the idle
+   * checks of {@link LazyLifeCycle}.
+   *
+   * @return the shared scheduler
+   */
+  public static ScheduledExecutorService scheduler() {
+    return Scheduler.INSTANCE;
+  }
+
+  /**
+   * @return <code>true</code> if {@link #virtualThreads()} uses
+   *         virtual threads
+   */
+  public static boolean isVirtualThreadsSupported() {
+    return Virtual.INSTANCE != Shared.INSTANCE;
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    final ScheduledThreadPoolExecutor scheduler =
+        new ScheduledThreadPoolExecutor(1, daemon("lifecycle-scheduler-"));
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+
+  private static Executor createVirtualThreadExecutor() {
+    try {
+      return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      return Shared.INSTANCE;
+    }
+  }
+
+  /**
+   * @param prefix the prefix of the thread names
+   * @return a {@link ThreadFactory} of daemon threads
+   */
+  static ThreadFactory daemon(String prefix) {
+    final AtomicInteger counter = new AtomicInteger();
+    return r -> {
+      Thread t = new Thread(r, prefix + counter.incrementAndGet());
+      t.setDaemon(true);
+      return t;
+    };
+  }
+
+}
@@ -0,0 +1,365 @@
+package com.fredhopper.lifecycle;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An in-memory journal of the attempts to change the state of
+ * the {@link AbstractLifeCycle} objects. The journal is a ring
+ * buffer of the last {@link #capacity()} attempts; an attempt
+ * is recorded without locking or logging. The journal refers
+ * to the components weakly and keeps only the id and the name
+ * of the threads so that it does not retain discarded
+ * components or terminated threads. Recording does not
+ * allocate: the components are recorded through a weak
+ * reference kept by the caller and the name of a thread is
+ * captured once, when the thread first records an attempt. The
+ * journal is installed
+ * globally with
+ * {@link AbstractLifeCycle#setJournal(LifeCycleJournal)} and is
+ * read on demand:
+ *
+ * <pre>
+ * LifeCycleJournal journal = new LifeCycleJournal(4096);
+ * AbstractLifeCycle.setJournal(journal);
+ * ...
+ * journal.entries(container).forEach(System.out::println);
+ * journal.dump(System.out);
+ * </pre>
+ */
+public final class LifeCycleJournal {
+
+  /**
+   * The default capacity: {@value} entries.
+   */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /**
+   * The outcome of an attempt to change the state.
+   */
+  public enum Outcome {
+
+    /**
+     * The state is changed.
+     */
+    CHANGED,
+
+    /**
+     * The state is not changed as the current state is not the
+     * expected one.
+     */
+    REJECTED,
+
+    ;
+  }
+
+  /**
+   * An attempt to change the state of a {@link LifeCycle}.
+   */
+  public static final class Entry {
+
+    private final long sequence;
+    private final long timestamp;
+    private final LifeCycle component;
+    private final State from;
+    private final State to;
+    private final State actual;
+    private final Outcome outcome;
+    private final long threadId;
+    private final String thread;
+
+    Entry(long sequence, long timestamp, LifeCycle component, State from, State to,
+        State actual, Outcome outcome, long threadId, String thread) {
+      this.sequence = sequence;
+      this.timestamp = timestamp;
+      this.component = component;
+      this.from = from;
+      this.to = to;
+      this.actual = actual;
+      this.outcome = outcome;
+      this.threadId = threadId;
+      this.thread = thread;
+    }
+
+    /**
+     * @return the sequence number of the attempt in the journal
+     */
+    public long getSequence() {
+      return sequence;
+    }
+
+    /**
+     * @return the time of the attempt in milli-seconds since the
+     *         epoch
+     */
+    public long getTimestamp() {
+      return timestamp;
+    }
+
+    /**
+     * @return the {@link LifeCycle} object or <code>null</code>
+     *         if it is garbage collected
+     */
+    public LifeCycle getComponent() {
+      return component;
+    }
+
+    /**
+     * @return the expected current state
+     */
+    public State getFrom() {
+      return from;
+    }
+
+    /**
+     * @return the target state
+     */
+    public State getTo() {
+      return to;
+    }
+
+    /**
+     * @return the state after the attempt: the target state if
+     *         {@link Outcome#CHANGED} and the actual current
+     *         state if {@link Outcome#REJECTED}
+     */
+    public State getActual() {
+      return actual;
+    }
+
+    /**
+     * @return the outcome of the attempt
+     */
+    public Outcome getOutcome() {
+      return outcome;
+    }
+
+    /**
+     * @return the id of the thread of the attempt
+     */
+    public long getThreadId() {
+      return threadId;
+    }
+
+    /**
+     * @return the name of the thread of the attempt at the time
+     *         the thread first recorded an attempt
+     */
+    public String getThread() {
+      return thread;
+    }
+
+    @Override
+    public String toString() {
+      return Instant.ofEpochMilli(timestamp) + " " + component + " " + from + " -> " + to + " "
+          + outcome + (outcome == Outcome.REJECTED ? " (" + actual + ")" : "") + " [" + thread
+          + "]";
+    }
+  }
+
+  private static final State[] STATES = State.values();
+  private static final Outcome[] OUTCOMES = Outcome.values();
+  private static final int STATE_BITS = 4;
+  private static final int STATE_MASK = (1 << STATE_BITS) - 1;
+  private static final int TIMESTAMP_SHIFT = 3 * STATE_BITS + 1;
+  private static final long EMPTY = Long.MIN_VALUE;
+  // The name of the current thread, captured once not to copy it at every attempt
+  private static final ThreadLocal<String> THREAD_NAME =
+      ThreadLocal.withInitial(() -> Thread.currentThread().getName());
+
+  private final int mask;
+  private final AtomicLong next = new AtomicLong();
+  // Every slot is guarded by its sequence number: the writer claims
+  // the slot with the complement of its sequence number
+  private final AtomicLongArray sequences;
+  // The timestamp, the outcome and the states packed in a long
+  private final AtomicLongArray events;
+  private final AtomicReferenceArray<WeakReference<LifeCycle>> components;
+  private final AtomicLongArray threadIds;
+  private final AtomicReferenceArray<String> threadNames;
+
+  /**
+   * C'tor with {@link #DEFAULT_CAPACITY}.
+   */
+  public LifeCycleJournal() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param capacity the number of the last entries to keep;
+   *        rounded up to a power of two
+   */
+  public LifeCycleJournal(int capacity) {
+    if (capacity <= 0 || capacity > 1 << 30) {
+      throw new IllegalArgumentException("Invalid journal capacity: " + capacity);
+    }
+    final int size =
+        Integer.bitCount(capacity) == 1 ? capacity : Integer.highestOneBit(capacity) << 1;
+    this.mask = size - 1;
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      this.sequences.set(i, EMPTY);
+    }
+    this.events = new AtomicLongArray(size);
+    this.components = new AtomicReferenceArray<>(size);
+    this.threadIds = new AtomicLongArray(size);
+    this.threadNames = new AtomicReferenceArray<>(size);
+  }
+
+  /**
+   * @return the number of the last entries kept
+   */
+  public int capacity() {
+    return this.mask + 1;
+  }
+
+  /**
+   * Records an attempt to change the state of a
+   * {@link LifeCycle}. The caller keeps one weak reference per
+   * component, as {@link AbstractLifeCycle} does, so that
+   * recording does not allocate.
+   *
+   * @param component the weak reference to the {@link LifeCycle}
+   *        object or <code>null</code>
+   * @param from the expected current state
+   * @param to the target state
+   * @param actual the state after the attempt
+   * @param outcome the outcome of the attempt
+   */
+  public void record(WeakReference<LifeCycle> component, State from, State to, State actual,
+      Outcome outcome) {
+    final long sequence = this.next.getAndIncrement();
+    final int slot = (int) sequence & this.mask;
+    if (!claim(slot, sequence)) {
+      return;
+    }
+    this.events.set(slot, System.currentTimeMillis() << TIMESTAMP_SHIFT
+        | outcome.ordinal() << 3 * STATE_BITS | ordinal(actual) << 2 * STATE_BITS
+        | ordinal(to) << STATE_BITS | ordinal(from));
+    this.components.set(slot, component);
+    this.threadIds.set(slot, Thread.currentThread().getId());
+    this.threadNames.set(slot, THREAD_NAME.get());
+    this.sequences.set(slot, sequence);
+  }
+
+  /**
+   * Claims a slot for a sequence number. A writer that wraps
+   * around the ring while an older writer still writes the same
+   * slot waits for it; a writer overtaken by a newer one drops
+   * its entry as it is already overwritten.
+   */
+  private boolean claim(int slot, long sequence) {
+    for (;;) {
+      final long current = this.sequences.get(slot);
+      final boolean writing = current < 0 && current != EMPTY;
+      final long owner = writing ? ~current : current;
+      if (current != EMPTY && owner > sequence) {
+        return false;
+      }
+      if (writing) {
+        Thread.yield();
+      } else if (this.sequences.compareAndSet(slot, current, ~sequence)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * @return the kept entries from the oldest to the newest
+   */
+  public List<Entry> entries() {
+    return entries(null);
+  }
+
+  /**
+   * @param component the {@link LifeCycle} object or
+   *        <code>null</code> for all
+   * @return the kept entries of <code>component</code> from the
+   *         oldest to the newest
+   */
+  public List<Entry> entries(LifeCycle component) {
+    final long end = this.next.get();
+    final List<Entry> entries = new ArrayList<>();
+    for (long sequence = Math.max(0, end - capacity()); sequence < end; sequence++) {
+      final int slot = (int) sequence & this.mask;
+      if (this.sequences.get(slot) != sequence) {
+        continue;
+      }
+      final long event = this.events.get(slot);
+      final WeakReference<LifeCycle> reference = this.components.get(slot);
+      final long threadId = this.threadIds.get(slot);
+      final String thread = this.threadNames.get(slot);
+      // Skip the entry if it is overwritten while being read
+      if (this.sequences.get(slot) != sequence) {
+        continue;
+      }
+      final LifeCycle c = reference == null ? null : reference.get();
+      if (component != null && c != component) {
+        continue;
+      }
+      entries.add(new Entry(sequence, event >>> TIMESTAMP_SHIFT, c, state(event),
+          state(event >>> STATE_BITS), state(event >>> 2 * STATE_BITS),
+          OUTCOMES[(int) (event >>> 3 * STATE_BITS) & 1], threadId, thread));
+    }
+    return entries;
+  }
+
+  /**
+   * Writes the kept entries as a JSON array from the oldest to
+   * the newest.
+   *
+   * @param out the destination
+   * @throws UncheckedIOException if an {@link IOException}
+   *         occurs
+   */
+  public void dump(Appendable out) {
+    try {
+      out.append('[');
+      String separator = "\n";
+      for (Entry entry : entries()) {
+        out.append(separator).append("  {\"sequence\": ").append(Long.toString(entry.sequence))
+            .append(", \"timestamp\": \"").append(Instant.ofEpochMilli(entry.timestamp).toString())
+            .append("\", \"component\": ");
+        Json.quote(out, String.valueOf(entry.component));
+        out.append(", \"from\": \"").append(entry.from.name()).append("\", \"to\": \"")
+            .append(entry.to.name()).append("\", \"actual\": \"").append(entry.actual.name())
+            .append("\", \"outcome\": \"").append(entry.outcome.name())
+            .append("\", \"thread\": ");
+        Json.quote(out, entry.thread);
+        out.append('}');
+        separator = ",\n";
+      }
+      out.append(separator.length() > 1 ? "\n]\n" : "]\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * @return the kept entries as a JSON array
+   * @see #dump(Appendable)
+   */
+  public String toJson() {
+    final StringBuilder sb = new StringBuilder();
+    dump(sb);
+    return sb.toString();
+  }
+
+  private static long ordinal(State state) {
+    return state.ordinal();
+  }
+
+  private static State state(long bits) {
+    return STATES[(int) bits & STATE_MASK];
+  }
+
+}
@@ -0,0 +1,72 @@
+package com.fredhopper.lifecycle;
+
+/**
+ * The management interface of the metrics of a
+ * {@link LifeCycle} object that {@link JmxLifeCycleMetrics}
+ * registers. The durations are in nano-seconds; a duration is
+ * <code>-1</code> until the transition is completed once.
+ */
+public interface LifeCycleMXBean {
+
+  /**
+   * @return the current state of the object or
+   *         <code>null</code> if it is garbage collected
+   */
+  String getState();
+
+  /**
+   * @return the duration of the last initialization
+   */
+  long getLastInitNanos();
+
+  /**
+   * @return the duration of the last start
+   */
+  long getLastStartNanos();
+
+  /**
+   * @return the duration of the last pause
+   */
+  long getLastPauseNanos();
+
+  /**
+   * @return the duration of the last resumption
+   */
+  long getLastResumeNanos();
+
+  /**
+   * @return the duration of the last stop
+   */
+  long getLastStopNanos();
+
+  /**
+   * @return the number of completed transitions
+   */
+  long getTransitions();
+
+  /**
+   * @return the number of failed transitions
+   */
+  long getTransitionFailures();
+
+  /**
+   * @return the number of listener notifications
+   */
+  long getListenerNotifications();
+
+  /**
+   * @return the total duration of the listener notifications
+   */
+  long getListenerNanos();
+
+  /**
+   * @return the longest duration of a listener notification
+   */
+  long getMaxListenerNanos();
+
+  /**
+   * @return the number of failed listener notifications
+   */
+  long getListenerFailures();
+
+}
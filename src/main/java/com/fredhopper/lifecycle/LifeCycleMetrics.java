@@ -0,0 +1,85 @@
+package com.fredhopper.lifecycle;
+
+/**
+ * A service provider interface to instrument the
+ * {@link AbstractLifeCycle} objects. An implementation is
+ * installed globally with
+ * {@link AbstractLifeCycle#setMetrics(LifeCycleMetrics)}; until
+ * then, {@link #NOOP} is installed and the life cycle objects
+ * do not even read the clock.
+ * <p>
+ * A transition is identified by the state it starts from and
+ * the state it ends in:
+ * <ul>
+ * <li>{@link LifeCycle#initLifeCycle()}: {@link State#STOPPED}
+ * to {@link State#INITIALIZED}
+ * <li>{@link LifeCycle#startLifeCycle()}:
+ * {@link State#INITIALIZED} to {@link State#RUNNING}
+ * <li>{@link Resumable#pause()}: {@link State#RUNNING} to
+ * {@link State#PAUSED}
+ * <li>{@link Resumable#resume()}: {@link State#PAUSED} to
+ * {@link State#RUNNING}
+ * <li>{@link LifeCycle#stopLifeCycle()}: {@link State#RUNNING}
+ * to {@link State#STOPPED}
+ * </ul>
+ * The methods are executed in the thread of the transition or
+ * of the listener and must be fast and thread-safe. The default
+ * methods do nothing.
+ *
+ * @see JmxLifeCycleMetrics
+ */
+public interface LifeCycleMetrics {
+
+  /**
+   * The metrics that record nothing.
+   */
+  LifeCycleMetrics NOOP = new LifeCycleMetrics() {};
+
+  /**
+   * Records a completed transition.
+   *
+   * @param lifeCycle the life cycle object
+   * @param from the state the transition starts from
+   * @param to the state the transition ends in
+   * @param nanos the duration of the transition including its
+   *        synchronous listeners
+   */
+  default void transitionCompleted(LifeCycle lifeCycle, State from, State to, long nanos) {}
+
+  /**
+   * Records a failed transition.
+   *
+   * @param lifeCycle the life cycle object
+   * @param from the state the transition starts from
+   * @param to the state the transition should have ended in
+   * @param nanos the time until the failure
+   * @param failure the failure
+   */
+  default void transitionFailed(LifeCycle lifeCycle, State from, State to, long nanos,
+      Throwable failure) {}
+
+  /**
+   * Records the notification of a listener.
+   *
+   * @param lifeCycle the life cycle object
+   * @param listener the listener
+   * @param from the old state
+   * @param to the new state
+   * @param nanos the duration of the notification
+   */
+  default void listenerNotified(LifeCycle lifeCycle, StateListener listener, State from,
+      State to, long nanos) {}
+
+  /**
+   * Records a failed notification of a listener.
+   *
+   * @param lifeCycle the life cycle object
+   * @param listener the listener
+   * @param from the old state
+   * @param to the new state
+   * @param failure the failure
+   */
+  default void listenerFailed(LifeCycle lifeCycle, StateListener listener, State from, State to,
+      Throwable failure) {}
+
+}
@@ -0,0 +1,75 @@
+package com.fredhopper.lifecycle;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An {@link Executor} that executes its tasks one at a time in
+ * the order of submission on a delegate {@link Executor}. A
+ * failing task is reported to the
+ * {@link Thread.UncaughtExceptionHandler} of the executing
+ * thread and does not prevent the next tasks. If the delegate
+ * rejects a task, the task is not queued and the
+ * {@link RejectedExecutionException} is re-thrown.
+ */
+final class SerialExecutor implements Executor {
+
+  private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private volatile Executor executor;
+
+  SerialExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Replaces the delegate {@link Executor}; a drain in progress
+   * completes on the former one.
+   *
+   * @param executor the new delegate
+   */
+  void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * @return <code>true</code> if no task is queued or running
+   */
+  boolean isIdle() {
+    return this.pending.get() == 0;
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    this.tasks.add(task);
+    if (this.pending.getAndIncrement() == 0) {
+      try {
+        this.executor.execute(this::drain);
+      } catch (RejectedExecutionException e) {
+        // No drain is scheduled: withdraw the task and run the
+        // ones accepted in the meantime on this thread
+        this.tasks.remove(task);
+        if (this.pending.decrementAndGet() > 0) {
+          drain();
+        }
+        throw e;
+      }
+    }
+  }
+
+  private void drain() {
+    do {
+      final Runnable task = this.tasks.poll();
+      try {
+        task.run();
+      } catch (RuntimeException | Error e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+      }
+    } while (this.pending.decrementAndGet() > 0);
+  }
+
+}
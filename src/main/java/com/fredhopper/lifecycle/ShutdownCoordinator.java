@@ -0,0 +1,326 @@
+package com.fredhopper.lifecycle;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A process-wide coordinator that stops the registered
+ * {@link LifeCycle} objects from a single JVM shutdown hook.
+ * The objects are stopped in parallel in the reverse order of
+ * their dependencies. Every object has a deadline to stop and
+ * the whole shutdown has a global deadline; the objects that
+ * overrun a deadline or fail to stop are reported to the
+ * {@link Thread.UncaughtExceptionHandler} of the shutdown hook
+ * and do not block the exit of the JVM. The dependencies of an
+ * object that did not stop are not stopped under it: they are
+ * left running and reported as well.
+ * <p>
+ * A {@link Container} registers its managed object while it is
+ * started; the dependencies registered for the object are kept
+ * when it stops so that they apply again once it is restarted.
+ * A started {@link ContainerGroup} contributes the dependencies
+ * among its members.
+ *
+ * @see Container#Container(LifeCycle, boolean, boolean)
+ * @see ContainerGroup
+ */
+public final class ShutdownCoordinator {
+
+  /**
+   * The default global deadline: {@value} milli-seconds.
+   */
+  public static final long DEFAULT_GLOBAL_TIMEOUT_MILLIS = 30_000;
+
+  /**
+   * The default deadline per component: {@value}
+   * milli-seconds.
+   */
+  public static final long DEFAULT_COMPONENT_TIMEOUT_MILLIS = 10_000;
+
+  private static final ShutdownCoordinator INSTANCE = new ShutdownCoordinator(true);
+
+  private final DependencyGraph<LifeCycle> graph = new DependencyGraph<>();
+  // The objects to stop; the other nodes only order them
+  private final Set<LifeCycle> lifeCycles = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final Set<ContainerGroup> groups = Collections.newSetFromMap(new IdentityHashMap<>());
+  private final boolean installHook;
+  private boolean hookInstalled;
+  private volatile long globalTimeoutMillis = DEFAULT_GLOBAL_TIMEOUT_MILLIS;
+  private volatile long componentTimeoutMillis = DEFAULT_COMPONENT_TIMEOUT_MILLIS;
+
+  /**
+   * C'tor.
+   *
+   * @param installHook if <code>true</code>, a JVM shutdown
+   *        hook is installed at the first registration
+   */
+  ShutdownCoordinator(boolean installHook) {
+    this.installHook = installHook;
+  }
+
+  /**
+   * @return the process-wide instance
+   */
+  public static ShutdownCoordinator getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registers a {@link LifeCycle} to be stopped at shutdown if
+   * it is {@link State#RUNNING}. Registering the same object
+   * again adds to its dependencies. The dependencies are
+   * registered to be stopped as well.
+   *
+   * @param lifeCycle the {@link LifeCycle} to stop
+   * @param dependencies the {@link LifeCycle} objects that
+   *        should be stopped after <code>lifeCycle</code>
+   * @throws IllegalArgumentException if a dependency already
+   *         depends on <code>lifeCycle</code>
+   */
+  public synchronized void register(LifeCycle lifeCycle, LifeCycle... dependencies) {
+    for (LifeCycle dependency : dependencies) {
+      if (graph().dependsOn(dependency, lifeCycle)) {
+        throw new IllegalArgumentException("Cannot register " + lifeCycle
+            + " with cyclic dependency " + dependency);
+      }
+    }
+    this.graph.add(lifeCycle, Arrays.asList(dependencies));
+    this.lifeCycles.add(lifeCycle);
+    this.lifeCycles.addAll(Arrays.asList(dependencies));
+    if (this.installHook && !this.hookInstalled) {
+      Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "jvm-shutdown"));
+      this.hookInstalled = true;
+    }
+  }
+
+  /**
+   * Unregisters a {@link LifeCycle} and forgets its
+   * dependencies.
+   *
+   * @param lifeCycle the {@link LifeCycle} not to stop anymore
+   */
+  public synchronized void unregister(LifeCycle lifeCycle) {
+    this.graph.remove(lifeCycle);
+    this.lifeCycles.remove(lifeCycle);
+  }
+
+  /**
+   * Stops tracking a stopped {@link LifeCycle} but keeps its
+   * dependencies for when it is registered again. The object is
+   * only forgotten if it has no dependency.
+   *
+   * @param lifeCycle the stopped {@link LifeCycle}
+   */
+  synchronized void release(LifeCycle lifeCycle) {
+    this.lifeCycles.remove(lifeCycle);
+    if (this.graph.isIsolated(lifeCycle)) {
+      this.graph.remove(lifeCycle);
+    }
+  }
+
+  /**
+   * Adds the dependencies among the members of a group to the
+   * order of the shutdown.
+   *
+   * @param group the started {@link ContainerGroup}
+   * @throws IllegalArgumentException if the dependencies of
+   *         the group conflict with the registered ones
+   */
+  synchronized void addDependencies(ContainerGroup group) {
+    if (!this.groups.add(group)) {
+      return;
+    }
+    try {
+      graph().waves();
+    } catch (IllegalStateException e) {
+      this.groups.remove(group);
+      throw new IllegalArgumentException("Cannot register " + group + ": " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Removes the dependencies among the members of a group from
+   * the order of the shutdown.
+   *
+   * @param group the stopped {@link ContainerGroup}
+   */
+  synchronized void removeDependencies(ContainerGroup group) {
+    this.groups.remove(group);
+  }
+
+  /**
+   * @param timeout the global deadline of the shutdown
+   * @param unit the unit of <code>timeout</code>
+   */
+  public void setGlobalTimeout(long timeout, TimeUnit unit) {
+    this.globalTimeoutMillis = unit.toMillis(timeout);
+  }
+
+  /**
+   * @param timeout the deadline to stop a single component
+   * @param unit the unit of <code>timeout</code>
+   */
+  public void setComponentTimeout(long timeout, TimeUnit unit) {
+    this.componentTimeoutMillis = unit.toMillis(timeout);
+  }
+
+  /**
+   * Stops all the registered {@link LifeCycle} objects that are
+   * {@link State#RUNNING} and waits at most for the deadlines.
+   * If the current thread is interrupted, the waiting stops and
+   * the later waves are not stopped; the interrupt status is
+   * kept.
+   *
+   * @return the {@link LifeCycle} objects that are still
+   *         started because they overran a deadline, failed to
+   *         stop, a dependent of theirs did not stop or their
+   *         stop was pending when the thread was interrupted,
+   *         mapped to the state they were left in
+   */
+  public Map<LifeCycle, State> stopAll() {
+    final Map<LifeCycle, State> interrupted = new LinkedHashMap<>();
+    final Map<LifeCycle, State> overran = stopAll(interrupted);
+    overran.putAll(interrupted);
+    return overran;
+  }
+
+  /**
+   * @param interrupted the {@link LifeCycle} objects whose stop
+   *        was pending when the thread was interrupted, mapped to
+   *        their state
+   * @return the other {@link LifeCycle} objects that are still
+   *         started, mapped to their state
+   * @see #stopAll()
+   */
+  private Map<LifeCycle, State> stopAll(Map<LifeCycle, State> interrupted) {
+    final List<List<LifeCycle>> waves;
+    final Map<LifeCycle, List<LifeCycle>> dependencies = new IdentityHashMap<>();
+    final Set<LifeCycle> registered = Collections.newSetFromMap(new IdentityHashMap<>());
+    synchronized (this) {
+      final DependencyGraph<LifeCycle> order = graph();
+      waves = new ArrayList<>(order.waves());
+      for (List<LifeCycle> wave : waves) {
+        for (LifeCycle lc : wave) {
+          dependencies.put(lc, new ArrayList<>(order.dependencies(lc)));
+        }
+      }
+      registered.addAll(this.lifeCycles);
+    }
+    Collections.reverse(waves);
+    final Map<LifeCycle, State> overran = new LinkedHashMap<>();
+    // The dependencies of the objects that did not stop
+    final Set<LifeCycle> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    final ExecutorService executor =
+        Executors.newCachedThreadPool(LifeCycleExecutors.daemon("jvm-shutdown-"));
+    final long deadline =
+        System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.globalTimeoutMillis);
+    try {
+      for (List<LifeCycle> wave : waves) {
+        final Map<LifeCycle, Future<?>> stops = new IdentityHashMap<>();
+        for (LifeCycle lc : wave) {
+          if (!registered.contains(lc)) {
+            if (inUse.contains(lc)) {
+              inUse.addAll(dependencies.get(lc));
+            }
+            continue;
+          }
+          final State state = lc.getState();
+          if (state != State.RUNNING && state != State.STOPPING) {
+            continue;
+          }
+          if (inUse.contains(lc) || System.nanoTime() - deadline >= 0) {
+            overran.put(lc, state);
+            inUse.addAll(dependencies.get(lc));
+          } else if (state == State.RUNNING) {
+            stops.put(lc, executor.submit(() -> {
+              lc.stopLifeCycle();
+              return null;
+            }));
+          }
+        }
+        final long componentDeadline =
+            System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(this.componentTimeoutMillis);
+        for (Map.Entry<LifeCycle, Future<?>> stop : stops.entrySet()) {
+          final long remaining = Math.min(componentDeadline, deadline) - System.nanoTime();
+          try {
+            stop.getValue().get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            continue;
+          } catch (TimeoutException | ExecutionException e) {
+            // The object did not stop
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stops.forEach((lc, future) -> {
+              final State state = lc.getState();
+              if (!future.isDone()) {
+                interrupted.put(lc, state);
+              } else if (state != State.STOPPED) {
+                overran.putIfAbsent(lc, state);
+              }
+            });
+            return overran;
+          }
+          overran.put(stop.getKey(), stop.getKey().getState());
+          inUse.addAll(dependencies.get(stop.getKey()));
+        }
+      }
+    } finally {
+      executor.shutdown();
+    }
+    return overran;
+  }
+
+  /**
+   * Executes {@link #stopAll()} and reports the components
+   * that overran a deadline, failed to stop or were still
+   * stopping when the shutdown was interrupted.
+   */
+  private void shutdown() {
+    final Map<LifeCycle, State> interrupted = new LinkedHashMap<>();
+    final Map<LifeCycle, State> overran = stopAll(interrupted);
+    final Thread thread = Thread.currentThread();
+    if (!overran.isEmpty()) {
+      thread.getUncaughtExceptionHandler().uncaughtException(thread,
+          new IllegalStateException("Cannot stop " + overran + " before the shutdown deadline"));
+    }
+    if (!interrupted.isEmpty()) {
+      thread.getUncaughtExceptionHandler().uncaughtException(thread,
+          new IllegalStateException("Interrupted while stopping " + interrupted));
+    }
+  }
+
+  /**
+   * @return the registered {@link LifeCycle} objects
+   */
+  synchronized Set<LifeCycle> getLifeCycles() {
+    final Set<LifeCycle> lifeCycles = Collections.newSetFromMap(new IdentityHashMap<>());
+    lifeCycles.addAll(this.lifeCycles);
+    return lifeCycles;
+  }
+
+  /**
+   * @return the registered dependencies and the ones of the
+   *         started groups
+   */
+  private DependencyGraph<LifeCycle> graph() {
+    if (this.groups.isEmpty()) {
+      return this.graph;
+    }
+    final DependencyGraph<LifeCycle> order = new DependencyGraph<>();
+    order.addAll(this.graph);
+    this.groups.forEach(group -> group.addDependencies(order));
+    return order;
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.fredhopper.lifecycle;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * A lock-free collection of {@link StateListener} backed by an
+ * immutable array that is replaced on every modification. The
+ * listeners can be published from {@link #snapshot()} without
+ * any locking; modifications retry a compare-and-set instead of
+ * acquiring a lock.
+ *
+ * @see AbstractLifeCycle#getStateListeners()
+ */
+public final class StateListenerRegistry extends AbstractCollection<StateListener> {
+
+  private static final StateListener[] EMPTY = new StateListener[0];
+
+  private final AtomicReference<StateListener[]> listeners = new AtomicReference<>(EMPTY);
+  private final Consumer<StateListener> onRemoved;
+
+  /**
+   * C'tor.
+   */
+  public StateListenerRegistry() {
+    this(l -> {});
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param onRemoved invoked with every listener that is not
+   *        registered anymore after a removal
+   */
+  StateListenerRegistry(Consumer<StateListener> onRemoved) {
+    this.onRemoved = onRemoved;
+  }
+
+  /**
+   * @return the current listeners; the returned array must not
+   *         be modified.
+   */
+  public StateListener[] snapshot() {
+    return this.listeners.get();
+  }
+
+  @Override
+  public boolean add(StateListener listener) {
+    Objects.requireNonNull(listener, "listener");
+    StateListener[] current;
+    StateListener[] updated;
+    do {
+      current = this.listeners.get();
+      updated = Arrays.copyOf(current, current.length + 1);
+      updated[current.length] = listener;
+    } while (!this.listeners.compareAndSet(current, updated));
+    return true;
+  }
+
+  @Override
+  public boolean remove(Object listener) {
+    return removeIf(l -> l.equals(listener), true);
+  }
+
+  @Override
+  public boolean removeIf(Predicate<? super StateListener> filter) {
+    return removeIf(filter, false);
+  }
+
+  @Override
+  public void clear() {
+    for (StateListener listener : this.listeners.getAndSet(EMPTY)) {
+      this.onRemoved.accept(listener);
+    }
+  }
+
+  @Override
+  public boolean removeAll(Collection<?> c) {
+    Objects.requireNonNull(c, "c");
+    return removeIf(c::contains, false);
+  }
+
+  @Override
+  public boolean retainAll(Collection<?> c) {
+    Objects.requireNonNull(c, "c");
+    return removeIf(l -> !c.contains(l), false);
+  }
+
+  /**
+   * The iterator traverses a snapshot of the listeners; its
+   * {@link Iterator#remove()} removes the last returned listener
+   * from the registry.
+   */
+  @Override
+  public Iterator<StateListener> iterator() {
+    final StateListener[] snapshot = snapshot();
+    return new Iterator<StateListener>() {
+
+      private int next;
+      private StateListener last;
+
+      @Override
+      public boolean hasNext() {
+        return this.next < snapshot.length;
+      }
+
+      @Override
+      public StateListener next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return this.last = snapshot[this.next++];
+      }
+
+      @Override
+      public void remove() {
+        if (this.last == null) {
+          throw new IllegalStateException();
+        }
+        StateListenerRegistry.this.remove(this.last);
+        this.last = null;
+      }
+    };
+  }
+
+  @Override
+  public int size() {
+    return snapshot().length;
+  }
+
+  private boolean removeIf(Predicate<? super StateListener> filter, boolean firstOnly) {
+    StateListener[] current;
+    StateListener[] updated;
+    do {
+      current = this.listeners.get();
+      updated = new StateListener[current.length];
+      int size = 0;
+      for (int i = 0; i < current.length; i++) {
+        final boolean removedBefore = size < i;
+        if ((firstOnly && removedBefore) || !filter.test(current[i])) {
+          updated[size++] = current[i];
+        }
+      }
+      if (size == current.length) {
+        return false;
+      }
+      updated = size == 0 ? EMPTY : Arrays.copyOf(updated, size);
+    } while (!this.listeners.compareAndSet(current, updated));
+    final List<StateListener> remaining = Arrays.asList(updated);
+    for (StateListener listener : current) {
+      if (!remaining.contains(listener)) {
+        this.onRemoved.accept(listener);
+      }
+    }
+    return true;
+  }
+
+}
@@ -0,0 +1,371 @@
+package com.fredhopper.lifecycle;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link LifeCycle} that starts its children and restarts
+ * them when they fail instead of failing the application. A
+ * child fails when its start fails, whether started by the
+ * supervisor or not, or when a failure is reported with
+ * {@link #reportFailure(LifeCycle, Throwable)}. The children
+ * are restarted according to a {@link Strategy} after an
+ * exponential backoff with jitter; a restart that fails is
+ * retried until the maximum number of consecutive restarts,
+ * after which the child is given up on until the supervisor is
+ * started again.
+ *
+ * <pre>
+ * Supervisor supervisor = new Supervisor(Strategy.ONE_FOR_ONE)
+ *     .add(database)
+ *     .add(cache);
+ * supervisor.initLifeCycle();
+ * supervisor.startLifeCycle();
+ * </pre>
+ *
+ * The restarts are executed on {@link LifeCycleExecutors#shared()}
+ * after a delay on {@link LifeCycleExecutors#scheduler()}.
+ */
+public class Supervisor extends AbstractLifeCycle {
+
+  /**
+   * The children restarted after a failure.
+   */
+  public enum Strategy {
+
+    /**
+     * Only the failed child is restarted.
+     */
+    ONE_FOR_ONE,
+
+    /**
+     * All the children are stopped in the reverse order and
+     * started again in order.
+     */
+    ONE_FOR_ALL,
+
+    ;
+  }
+
+  /**
+   * The default delay before the first restart: {@value}
+   * milli-seconds.
+   */
+  public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 100;
+
+  /**
+   * The default maximum delay before a restart: {@value}
+   * milli-seconds.
+   */
+  public static final long DEFAULT_MAX_BACKOFF_MILLIS = 30_000;
+
+  /**
+   * The state of the restarts of a child, or of all the children
+   * with {@link Strategy#ONE_FOR_ALL}.
+   */
+  private static final class Restart {
+    private final AtomicBoolean pending = new AtomicBoolean();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private volatile ScheduledFuture<?> scheduled;
+    private volatile boolean givenUp;
+  }
+
+  private final class Child implements SynchronousStateListener {
+
+    private final LifeCycle lifeCycle;
+    private final Restart restart;
+    private final AtomicLong restarts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private volatile Throwable lastFailure;
+
+    Child(LifeCycle lifeCycle, Restart restart) {
+      this.lifeCycle = lifeCycle;
+      this.restart = restart;
+    }
+
+    @Override
+    public void stateChanged(State oldState, State newState) {
+      if (oldState == State.STARTING && newState == State.INITIALIZED) {
+        failed(this, null);
+      }
+    }
+  }
+
+  private final Strategy strategy;
+  private final long initialBackoffNanos;
+  private final long maxBackoffNanos;
+  private final int maxRestarts;
+  private final List<Child> children = new CopyOnWriteArrayList<>();
+  private final Restart allRestart = new Restart();
+  private final Object supervisionMonitor = new Object();
+
+  /**
+   * C'tor with {@link #DEFAULT_INITIAL_BACKOFF_MILLIS},
+   * {@link #DEFAULT_MAX_BACKOFF_MILLIS} and no maximum number
+   * of restarts.
+   *
+   * @param strategy the {@link Strategy} of the restarts
+   */
+  public Supervisor(Strategy strategy) {
+    this(strategy, DEFAULT_INITIAL_BACKOFF_MILLIS, DEFAULT_MAX_BACKOFF_MILLIS,
+        TimeUnit.MILLISECONDS, Integer.MAX_VALUE);
+  }
+
+  /**
+   * C'tor.
+   *
+   * @param strategy the {@link Strategy} of the restarts
+   * @param initialBackoff the delay before the first restart;
+   *        doubled at every consecutive restart
+   * @param maxBackoff the maximum delay before a restart
+   * @param unit the unit of the delays
+   * @param maxRestarts the maximum number of consecutive
+   *        restarts of a child before giving up
+   */
+  public Supervisor(Strategy strategy, long initialBackoff, long maxBackoff, TimeUnit unit,
+      int maxRestarts) {
+    this.strategy = strategy;
+    this.initialBackoffNanos = Math.max(1, unit.toNanos(initialBackoff));
+    this.maxBackoffNanos = Math.max(this.initialBackoffNanos, unit.toNanos(maxBackoff));
+    this.maxRestarts = maxRestarts;
+  }
+
+  /**
+   * Adds a child before the supervisor is initialized. The
+   * children are started in the order they are added.
+   *
+   * @param lifeCycle the child
+   * @return this supervisor
+   */
+  public Supervisor add(LifeCycle lifeCycle) {
+    final Child child = new Child(lifeCycle,
+        this.strategy == Strategy.ONE_FOR_ALL ? this.allRestart : new Restart());
+    try {
+      lifeCycle.getStateListeners().add(child);
+    } catch (UnsupportedOperationException e) {
+      // Only the failures of the starts by the supervisor are detected
+    }
+    this.children.add(child);
+    return this;
+  }
+
+  /**
+   * Reports the failure of a child that is detected by the
+   * application, e.g. a lost connection, to restart it.
+   *
+   * @param lifeCycle the failed child
+   * @param cause the cause of the failure or <code>null</code>
+   */
+  public void reportFailure(LifeCycle lifeCycle, Throwable cause) {
+    failed(child(lifeCycle), cause);
+  }
+
+  /**
+   * @param lifeCycle a child
+   * @return the number of successful restarts of the child
+   */
+  public long getRestarts(LifeCycle lifeCycle) {
+    return child(lifeCycle).restarts.get();
+  }
+
+  /**
+   * @param lifeCycle a child
+   * @return the number of failures of the child
+   */
+  public long getFailures(LifeCycle lifeCycle) {
+    return child(lifeCycle).failures.get();
+  }
+
+  /**
+   * @param lifeCycle a child
+   * @return the cause of the last failure of the child or
+   *         <code>null</code> if unknown
+   */
+  public Throwable getLastFailure(LifeCycle lifeCycle) {
+    return child(lifeCycle).lastFailure;
+  }
+
+  /**
+   * @param lifeCycle a child
+   * @return <code>true</code> if the child failed more than the
+   *         maximum number of consecutive restarts and is not
+   *         restarted until the supervisor is started again
+   */
+  public boolean isGivenUp(LifeCycle lifeCycle) {
+    return child(lifeCycle).restart.givenUp;
+  }
+
+  /**
+   * @return the number of successful restarts of all the
+   *         children
+   */
+  public long getRestarts() {
+    return this.children.stream().mapToLong(c -> c.restarts.get()).sum();
+  }
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {
+    for (Child child : this.children) {
+      child.lifeCycle.initLifeCycle();
+    }
+  }
+
+  /**
+   * Starts the children in order; a child that fails to start
+   * is restarted later and does not fail the supervisor. The
+   * children given up on are supervised again.
+   */
+  @Override
+  protected void doStartLifeCycle() throws Exception {
+    synchronized (this.supervisionMonitor) {
+      for (Child child : this.children) {
+        child.restart.pending.set(false);
+        child.restart.attempts.set(0);
+        child.restart.givenUp = false;
+      }
+      for (Child child : this.children) {
+        try {
+          child.lifeCycle.startLifeCycle();
+        } catch (Exception e) {
+          failed(child, e);
+        }
+      }
+    }
+  }
+
+  @Override
+  protected void doStopLifeCycle() throws Exception {
+    for (Child child : this.children) {
+      final ScheduledFuture<?> scheduled = child.restart.scheduled;
+      if (scheduled != null) {
+        scheduled.cancel(false);
+      }
+    }
+    synchronized (this.supervisionMonitor) {
+      Exception failure = null;
+      for (int i = this.children.size() - 1; i >= 0; i--) {
+        try {
+          stop(this.children.get(i).lifeCycle);
+        } catch (Exception e) {
+          if (failure == null) {
+            failure = e;
+          } else {
+            failure.addSuppressed(e);
+          }
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "Supervisor[" + this.strategy + "]@" + Integer.toHexString(hashCode());
+  }
+
+  /**
+   * Schedules the restart of a failed child unless one is
+   * already pending or the child failed too many times.
+   */
+  private void failed(Child child, Throwable cause) {
+    final Restart restart = child.restart;
+    if (cause != null) {
+      // A failed start is detected by the listener before its cause
+      child.lastFailure = cause;
+    }
+    if (!isSupervising() || !restart.pending.compareAndSet(false, true)) {
+      return;
+    }
+    child.failures.incrementAndGet();
+    final int attempt = restart.attempts.incrementAndGet();
+    if (attempt > this.maxRestarts) {
+      // The restart remains pending not to restart the child again
+      restart.givenUp = true;
+      return;
+    }
+    restart.scheduled = LifeCycleExecutors.scheduler().schedule(
+        () -> LifeCycleExecutors.shared().execute(() -> restart(child)), backoff(attempt),
+        TimeUnit.NANOSECONDS);
+  }
+
+  /**
+   * @param attempt the number of the consecutive restart from 1
+   * @return the delay of the restart: the exponential backoff
+   *         with a random jitter of up to its half
+   */
+  private long backoff(int attempt) {
+    final int doublings = Math.min(attempt - 1, 62);
+    final long backoff = this.initialBackoffNanos > this.maxBackoffNanos >> doublings
+        ? this.maxBackoffNanos : this.initialBackoffNanos << doublings;
+    return backoff - ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+  }
+
+  private void restart(Child failed) {
+    synchronized (this.supervisionMonitor) {
+      failed.restart.pending.set(false);
+      if (!isSupervising()) {
+        return;
+      }
+      final List<Child> restarted =
+          this.strategy == Strategy.ONE_FOR_ONE ? Collections.singletonList(failed) : this.children;
+      for (int i = restarted.size() - 1; i >= 0; i--) {
+        try {
+          stop(restarted.get(i).lifeCycle);
+        } catch (Exception e) {
+          failed(failed, e);
+          return;
+        }
+      }
+      for (Child child : restarted) {
+        try {
+          if (child.lifeCycle.getState() == State.STOPPED) {
+            child.lifeCycle.initLifeCycle();
+          }
+          if (child.lifeCycle.getState() != State.INITIALIZED) {
+            throw new IllegalStateException(
+                "Cannot restart " + child.lifeCycle + " in " + child.lifeCycle.getState());
+          }
+          child.lifeCycle.startLifeCycle();
+        } catch (Exception e) {
+          failed(child, e);
+          return;
+        }
+        child.restarts.incrementAndGet();
+      }
+      failed.restart.attempts.set(0);
+    }
+  }
+
+  private boolean isSupervising() {
+    final State state = getState();
+    return state == State.STARTING || state == State.RUNNING;
+  }
+
+  private Child child(LifeCycle lifeCycle) {
+    for (Child child : this.children) {
+      if (child.lifeCycle == lifeCycle) {
+        return child;
+      }
+    }
+    throw new IllegalArgumentException("Not supervised: " + lifeCycle);
+  }
+
+  private static void stop(LifeCycle lifeCycle) throws Exception {
+    if (lifeCycle.getState() == State.PAUSED) {
+      lifeCycle.resume();
+    }
+    if (lifeCycle.getState() == State.RUNNING) {
+      lifeCycle.stopLifeCycle();
+    }
+  }
+
+}
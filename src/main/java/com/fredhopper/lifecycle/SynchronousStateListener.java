@@ -0,0 +1,15 @@
+package com.fredhopper.lifecycle;
+
+/**
+ * A {@link StateListener} that is always notified in the thread
+ * that changes the {@link State}, even if the
+ * {@link AbstractLifeCycle} dispatches the changes of state
+ * asynchronously. Only a synchronous listener can fail a change
+ * of state by throwing an exception.
+ *
+ * @see AbstractLifeCycle#setStateListenerExecutor(java.util.concurrent.Executor)
+ */
+@FunctionalInterface
+public interface SynchronousStateListener extends StateListener {
+
+}
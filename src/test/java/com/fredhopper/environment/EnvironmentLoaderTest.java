@@ -0,0 +1,98 @@
+package com.fredhopper.environment;
+
+import static com.fredhopper.environment.TestFiles.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EnvironmentLoaderTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @After
+  public void clearSystemProperties() {
+    System.clearProperty(Environment.ENVIRONMENT_FILE);
+    System.clearProperty(Environment.ENVIRONMENT_SNAPSHOT);
+  }
+
+  @Test
+  public void filesDirectoriesAndGlobsAreMergedInOrder() throws Exception {
+    Path root = folder.getRoot().toPath();
+    Path base = write(root.resolve("base.properties"), "a=base\nb=base\nc=base\nd=base\n");
+    Path confd = Files.createDirectories(root.resolve("conf.d"));
+    write(confd.resolve("20-module.properties"), "b=20\nc=20\n");
+    write(confd.resolve("10-module.properties"), "b=10\n");
+    write(confd.resolve("30-module.txt"), "c=txt\n");
+    write(confd.resolve(".40-module.properties"), "c=hidden\n");
+    Path tenants = Files.createDirectories(root.resolve("tenants"));
+    write(tenants.resolve("b.properties"), "d=b\n");
+    write(tenants.resolve("a.properties"), "d=a\n");
+    write(tenants.resolve(".hidden"), "d=hidden\n");
+    setEnvironmentFile(base.toString(), confd + File.separator + "*.properties",
+        root.resolve("missing.properties").toString(), tenants.toString());
+    assertEquals(Arrays.asList(base, confd.resolve("10-module.properties"),
+        confd.resolve("20-module.properties"), tenants.resolve("a.properties"),
+        tenants.resolve("b.properties")), EnvironmentLoader.environmentFiles());
+    Environment env = Environment.createEnvironment(Collections.singletonMap("e", "default"));
+    assertEquals("base", env.getValue("a"));
+    assertEquals("20", env.getValue("b"));
+    assertEquals("20", env.getValue("c"));
+    assertEquals("b", env.getValue("d"));
+    assertEquals("default", env.getValue("e"));
+    env = Environment.createLayeredEnvironment(Collections.emptyMap(), Collections.emptyMap());
+    assertEquals("20", env.getValue("b"));
+  }
+
+  @Test
+  public void existingFileIsTakenLiterally() throws Exception {
+    Path root = folder.getRoot().toPath();
+    Path file = write(root.resolve("env" + File.pathSeparator + "[1].properties"), "a=1\n");
+    write(root.resolve("env"), "a=env\n");
+    write(root.resolve("1.properties"), "a=glob\n");
+    System.setProperty(Environment.ENVIRONMENT_FILE, file.toString());
+    assertEquals(Collections.singletonList(file), EnvironmentLoader.environmentFiles());
+    assertEquals("1", Environment.createEnvironment().getValue("a"));
+  }
+
+  @Test
+  public void snapshotOfEveryFileIsIndexed() throws Exception {
+    Path root = folder.getRoot().toPath();
+    Path first = write(root.resolve("first.properties"), "a=1\n");
+    Path second = write(root.resolve("second.properties"), "a=2\n");
+    setEnvironmentFile(first.toString(), second.toString());
+    System.setProperty(Environment.ENVIRONMENT_SNAPSHOT, root.resolve("env.snapshot").toString());
+    assertEquals("2", Environment.createEnvironment().getValue("a"));
+    assertEquals("1", EnvironmentSnapshot.read(root.resolve("env.snapshot.0"), first).get("a"));
+    assertEquals("2", EnvironmentSnapshot.read(root.resolve("env.snapshot.1"), second).get("a"));
+  }
+
+  @Test
+  public void failureReportsOffendingFile() throws Exception {
+    Path root = folder.getRoot().toPath();
+    Path good = write(root.resolve("good.properties"), "a=1\n");
+    Path bad = write(root.resolve("bad.properties"), "a=\\u00g1\n");
+    setEnvironmentFile(good.toString(), bad.toString());
+    try {
+      Environment.createEnvironment();
+      fail("Expected a malformed file");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Cannot load environment from " + bad, e.getMessage());
+    }
+  }
+
+  private static void setEnvironmentFile(String... elements) {
+    System.setProperty(Environment.ENVIRONMENT_FILE, String.join(File.pathSeparator, elements));
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.fredhopper.environment;
+
+import static com.fredhopper.environment.TestFiles.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EnvironmentSnapshotTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @After
+  public void clearSystemProperties() {
+    System.clearProperty(Environment.ENVIRONMENT_FILE);
+    System.clearProperty(Environment.ENVIRONMENT_SNAPSHOT);
+  }
+
+  @Test
+  public void snapshotIsWrittenAndReadBack() throws Exception {
+    Path file = write(folder.getRoot().toPath().resolve("env.properties"), "a=1\nb=é\n");
+    Path snapshot = folder.getRoot().toPath().resolve("cache/env.snapshot");
+    assertNull(EnvironmentSnapshot.read(snapshot, file));
+    Map<String, String> expected = new HashMap<>();
+    expected.put("a", "1");
+    expected.put("b", "é");
+    assertEquals(expected, EnvironmentSnapshot.load(snapshot, file));
+    assertTrue(Files.exists(snapshot));
+    assertEquals(expected, EnvironmentSnapshot.read(snapshot, file));
+  }
+
+  @Test
+  public void staleSnapshotIsIgnored() throws Exception {
+    Path file = write(folder.getRoot().toPath().resolve("env.properties"), "a=1\n");
+    Path snapshot = folder.getRoot().toPath().resolve("env.snapshot");
+    EnvironmentSnapshot.load(snapshot, file);
+    FileTime modified = Files.getLastModifiedTime(file);
+    write(file, "a=2\n");
+    Files.setLastModifiedTime(file, modified);
+    assertNull(EnvironmentSnapshot.read(snapshot, file));
+    assertEquals("2", EnvironmentSnapshot.load(snapshot, file).get("a"));
+    assertEquals("2", EnvironmentSnapshot.read(snapshot, file).get("a"));
+    Files.write(snapshot, new byte[] {1, 2, 3});
+    assertNull(EnvironmentSnapshot.read(snapshot, file));
+    assertEquals("2", EnvironmentSnapshot.load(snapshot, file).get("a"));
+  }
+
+  @Test
+  public void corruptLengthsMakeSnapshotStale() throws Exception {
+    Path file = write(folder.getRoot().toPath().resolve("env.properties"), "a=1\n");
+    Path snapshot = folder.getRoot().toPath().resolve("env.snapshot");
+    EnvironmentSnapshot.load(snapshot, file);
+    byte[] valid = Files.readAllBytes(snapshot);
+    int countOffset = 12 + file.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8).length
+        + 20;
+    for (int length : new int[] {Integer.MAX_VALUE, -1}) {
+      ByteBuffer corrupt = ByteBuffer.wrap(valid.clone());
+      corrupt.putInt(8, length);
+      Files.write(snapshot, corrupt.array());
+      assertNull(EnvironmentSnapshot.read(snapshot, file));
+      corrupt = ByteBuffer.wrap(valid.clone());
+      corrupt.putInt(countOffset, length);
+      Files.write(snapshot, corrupt.array());
+      assertNull(EnvironmentSnapshot.read(snapshot, file));
+    }
+    assertEquals("1", EnvironmentSnapshot.load(snapshot, file).get("a"));
+  }
+
+  @Test
+  public void environmentIsCreatedThroughSnapshot() throws Exception {
+    Path file = write(folder.getRoot().toPath().resolve("env.properties"), "snapshot.key=x\n");
+    Path snapshot = folder.getRoot().toPath().resolve("env.snapshot");
+    System.setProperty(Environment.ENVIRONMENT_FILE, file.toString());
+    System.setProperty(Environment.ENVIRONMENT_SNAPSHOT, snapshot.toString());
+    assertEquals("x", Environment.createEnvironment().getValue("snapshot.key"));
+    assertEquals("x", EnvironmentSnapshot.read(snapshot, file).get("snapshot.key"));
+    assertEquals("x", Environment.createEnvironment().getValue("snapshot.key"));
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.fredhopper.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class FrozenStringMapTest {
+
+  @Test
+  public void frozenMapEqualsSource() {
+    Map<String, String> source = new HashMap<>();
+    Random random = new Random(42);
+    for (int i = 0; i < 5_000; i++) {
+      source.put("key." + random.nextInt(), "value." + i);
+    }
+    // "Aa" and "BB" have the same hash code
+    source.put("Aa", "1");
+    source.put("BB", "2");
+    FrozenStringMap frozen = FrozenStringMap.copyOf(source);
+    assertEquals(source.size(), frozen.size());
+    assertEquals(source, frozen);
+    assertEquals(source, new HashMap<>(frozen));
+    for (Map.Entry<String, String> entry : source.entrySet()) {
+      assertEquals(entry.getValue(), frozen.get(entry.getKey()));
+    }
+    assertNull(frozen.get("missing"));
+    assertNull(frozen.get(42));
+    assertFalse(frozen.containsKey("missing"));
+  }
+
+  @Test
+  public void emptyAndNullValuesAreIgnored() {
+    Map<String, String> source = new HashMap<>();
+    source.put("k", null);
+    assertEquals(0, FrozenStringMap.copyOf(source).size());
+    assertNull(FrozenStringMap.copyOf(new HashMap<>()).get("k"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void frozenMapIsImmutable() {
+    FrozenStringMap.copyOf(new HashMap<>()).put("k", "v");
+  }
+
+}
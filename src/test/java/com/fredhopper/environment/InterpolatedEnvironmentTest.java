@@ -0,0 +1,99 @@
+package com.fredhopper.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class InterpolatedEnvironmentTest {
+
+  @Test
+  public void placeholdersAreExpanded() {
+    Map<String, String> values = new HashMap<>();
+    values.put(Environment.APPLICATION_NAME, "myapp");
+    values.put("base", "/opt");
+    values.put("myapp.root", "${base}/${application.name}");
+    values.put("myapp.data", "${myapp.root}/data");
+    values.put("timeout", "${myapp.timeout:-30}s");
+    values.put("port", "${missing.port:-${missing.other:-8080}}");
+    values.put("unresolved", "x${missing}y");
+    values.put("unterminated", "${base");
+    Environment env = new KeyValueEnvironment(values).interpolated();
+    assertEquals("/opt/myapp/data", env.getValue("myapp.data"));
+    assertEquals(Paths.get("/opt/myapp"), env.getApplicationRoot());
+    assertEquals(30_000, env.getDuration("timeout", null).toMillis());
+    assertEquals(8080, env.getInt("port", 0));
+    assertEquals("x${missing}y", env.getValue("unresolved"));
+    assertEquals("${base", env.getValue("unterminated"));
+    assertEquals("/opt/myapp/data", env.asMap().get("myapp.data"));
+    assertSame(env, env.interpolated());
+  }
+
+  @Test
+  public void cyclesAreReportedAtConstruction() {
+    Map<String, String> values = new HashMap<>();
+    values.put("a", "${b}");
+    values.put("b", "x${c:-${a}}");
+    values.put("c", "c");
+    try {
+      new KeyValueEnvironment(values).interpolated();
+      fail("Expected a cycle");
+    } catch (IllegalArgumentException e) {
+      assertTrue(e.getMessage().startsWith("Cyclic reference in environment values: "));
+    }
+    try {
+      new KeyValueEnvironment(Collections.singletonMap("a", "${a}")).interpolated();
+      fail("Expected a cycle");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Cyclic reference in environment values: a -> a", e.getMessage());
+    }
+  }
+
+  @Test
+  public void overridesAreExpandedAgain() {
+    Map<String, String> values = new HashMap<>();
+    values.put("tenant", "default");
+    values.put("dir", "/data/${tenant}");
+    Environment env = new KeyValueEnvironment(values).interpolated();
+    Environment child = env.withOverrides(Collections.singletonMap("tenant", "acme"));
+    assertEquals("/data/default", env.getValue("dir"));
+    assertEquals("/data/acme", child.getValue("dir"));
+  }
+
+  @Test
+  public void overridesShareTheBase() {
+    Map<String, String> values = new HashMap<>();
+    values.put("tenant", "default");
+    values.put("dir", "/data/${tenant}");
+    values.put("logs", "${dir}/logs");
+    values.put("home", "/home/${user:-app}");
+    InterpolatingMap base = new InterpolatingMap(values);
+    InterpolatingMap child = new InterpolatingMap(base, Collections.singletonMap("tenant", "acme"));
+    assertEquals(0, child.getCompiledTemplates());
+    assertSame(base.getSource(), ((LayeredMap) child.getSource()).getLayers().get(1));
+    assertSame(base.get("home"), child.get("home"));
+    assertEquals("/data/acme/logs", child.get("logs"));
+    assertEquals("/data/default/logs", base.get("logs"));
+    InterpolatingMap grandChild =
+        new InterpolatingMap(child, Collections.singletonMap("user", "${tenant}"));
+    assertEquals(1, grandChild.getCompiledTemplates());
+    assertEquals("/home/acme", grandChild.get("home"));
+    assertEquals("/data/acme/logs", grandChild.get("logs"));
+    assertEquals(5, grandChild.size());
+    try {
+      new InterpolatingMap(base, Collections.singletonMap("tenant", "${logs}"));
+      fail("Expected a cycle");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Cyclic reference in environment values: tenant -> logs -> dir -> tenant",
+          e.getMessage());
+    }
+  }
+
+}
@@ -3,6 +3,10 @@ package com.fredhopper.environment;
 import static com.google.common.truth.Truth.assertThat;
 import static org.junit.Assert.assertEquals;
 
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -49,4 +53,61 @@ public class KeyValueEnvironmentTest {
     }
   }
 
+  @Test
+  public void derivedValuesAreComputedFromApplicationName() {
+    Map<String, String> init = new HashMap<String, String>();
+    init.put(Environment.APPLICATION_NAME, "app");
+    init.put("app.server.host", "localhost");
+    init.put("app.server.port", "8080");
+    Environment env = new KeyValueEnvironment(init);
+    assertEquals("app.log", env.getLogFileName());
+    assertEquals("app.log.%d{yyyy-MM-dd}", env.getRotatingLogFilePattern());
+    assertEquals("app-access.log", env.getAccessLogFileName());
+    assertEquals("app-access.log.yyyy-MM-dd", env.getRotatingAccessLogFileName());
+    assertEquals("/app", env.getContextPath());
+    assertThat(env.getContextPath()).isSameAs(env.getContextPath());
+    assertEquals("localhost", env.getServerHost());
+    assertEquals(8080, env.getServerPort());
+  }
+
+  @Test
+  public void typedAccessorsParseAndMemoizeValues() {
+    Map<String, String> init = new HashMap<String, String>();
+    init.put("int", " 42 ");
+    init.put("long", "9000000000");
+    init.put("bool", "TRUE");
+    init.put("timeout", "30s");
+    init.put("iso", "PT1M");
+    init.put("millis", "250");
+    init.put("days", "200000d");
+    init.put("path", "/var/app");
+    init.put("list", "a, b,,c ");
+    Environment env = new KeyValueEnvironment(init);
+    assertEquals(42, env.getInt("int", 0));
+    assertEquals(9_000_000_000L, env.getLong("long", 0));
+    assertEquals(true, env.getBoolean("bool", false));
+    assertEquals(Duration.ofSeconds(30), env.getDuration("timeout", null));
+    assertEquals(Duration.ofMinutes(1), env.getDuration("iso", null));
+    assertEquals(Duration.ofMillis(250), env.getDuration("millis", null));
+    assertEquals(Duration.ofDays(200_000), env.getDuration("days", null));
+    assertEquals(Paths.get("/var/app"), env.getPath("path", null));
+    assertEquals(Arrays.asList("a", "b", "c"), env.getList("list", null));
+    assertThat(env.getList("list", null)).isSameAs(env.getList("list", null));
+    assertEquals(7, env.getInt("missing", 7));
+    assertEquals(Collections.emptyList(), env.getList("missing", Collections.emptyList()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void typedAccessorFailsOnInvalidValue() {
+    Environment env = new KeyValueEnvironment(Collections.singletonMap("bool", "yes"));
+    env.getBoolean("bool", false);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void durationFailsOnOverflow() {
+    Environment env =
+        new KeyValueEnvironment(Collections.singletonMap("timeout", Long.MAX_VALUE + "d"));
+    env.getDuration("timeout", null);
+  }
+
 }
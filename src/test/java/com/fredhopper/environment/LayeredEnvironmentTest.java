@@ -0,0 +1,127 @@
+package com.fredhopper.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LayeredEnvironmentTest {
+
+  private static final String KEY = "layered.environment.test";
+
+  @After
+  public void clearSystemProperty() {
+    System.clearProperty(KEY);
+  }
+
+  @Test
+  public void layersAreResolvedInOrderOfPrecedence() {
+    Map<String, String> defaults = new HashMap<>();
+    defaults.put(KEY, "default");
+    defaults.put("only.default", "d");
+    Environment env = Environment.createLayeredEnvironment(defaults, Collections.emptyMap());
+    assertEquals("default", env.getValue(KEY));
+    System.setProperty(KEY, "system");
+    assertEquals("system", env.getValue(KEY));
+    env = Environment.createLayeredEnvironment(defaults, Collections.singletonMap(KEY, "over"));
+    assertEquals("over", env.getValue(KEY));
+    assertEquals("d", env.getValue("only.default"));
+  }
+
+  @Test
+  public void cachedEnvironmentDoesNotSeeLaterChanges() {
+    Environment env = Environment.createLayeredEnvironment(Collections.singletonMap(KEY, "a"),
+        Collections.emptyMap(), true);
+    assertEquals("a", env.getValue(KEY));
+    System.setProperty(KEY, "b");
+    assertEquals("a", env.getValue(KEY));
+  }
+
+  @Test
+  public void typedValuesSeeLaterChanges() {
+    Map<String, String> defaults = new HashMap<>();
+    defaults.put(KEY, "1");
+    defaults.put(Environment.APPLICATION_NAME, "app");
+    defaults.put("app" + Environment.SERVER_PORT_SUFFIX, "8080");
+    Environment env = Environment.createLayeredEnvironment(defaults, Collections.emptyMap());
+    assertEquals(1, env.getInt(KEY, 0));
+    assertEquals(8080, env.getServerPort());
+    defaults.put(KEY, "2");
+    defaults.put("app" + Environment.SERVER_PORT_SUFFIX, "9090");
+    assertEquals("2", env.getValue(KEY));
+    assertEquals(2, env.getInt(KEY, 0));
+    assertEquals(9090, env.getServerPort());
+    defaults.remove(KEY);
+    assertNull(env.getValue(KEY));
+    assertEquals(0, env.getInt(KEY, 0));
+  }
+
+  @Test
+  public void cachedEnvironmentIteratesOverCachedValues() {
+    Map<String, String> defaults = new HashMap<>();
+    defaults.put(KEY, "a");
+    Environment env = Environment.createLayeredEnvironment(defaults, Collections.emptyMap(), true);
+    Map<String, String> map = env.asMap();
+    assertEquals("a", map.get(KEY));
+    assertNull(map.get("layered.environment.later"));
+    System.setProperty(KEY, "b");
+    defaults.put("layered.environment.later", "c");
+    assertEquals("a", new HashMap<>(map).get(KEY));
+    assertFalse(new HashMap<>(map).containsKey("layered.environment.later"));
+    assertEquals(new HashMap<>(map).size(), map.size());
+    defaults.put("layered.environment.after", "d");
+    assertNull(map.get("layered.environment.after"));
+  }
+
+  @Test
+  public void lookupOfOtherKeysDoesNotFail() {
+    Map<String, String> map = Environment.createLayeredEnvironment(Collections.emptyMap(),
+        Collections.emptyMap()).asMap();
+    assertNull(map.get(1));
+    assertFalse(map.containsKey(1));
+    assertNull(map.get("layered.environment.missing"));
+  }
+
+  @Test
+  public void asMapVisitsEveryKeyOnceWithResolvedValue() {
+    LayeredMap map = LayeredMap.of(Collections.singletonMap("k", "top"),
+        Collections.singletonMap("k", "bottom"), Collections.singletonMap("x", "1"));
+    assertEquals(2, map.size());
+    Map<String, String> expected = new HashMap<>();
+    expected.put("k", "top");
+    expected.put("x", "1");
+    assertEquals(expected, new HashMap<>(map));
+    assertNull(map.get("missing"));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void asMapIsUnmodifiable() {
+    Environment.createLayeredEnvironment(Collections.emptyMap(), Collections.emptyMap()).asMap()
+        .put("k", "v");
+  }
+
+  @Test
+  public void childEnvironmentOverridesAndSharesParent() {
+    Map<String, String> base = new HashMap<>();
+    base.put(Environment.APPLICATION_NAME, "app");
+    base.put("app.server.port", "8080");
+    base.put("shared", "s");
+    Environment parent = Environment.createEnvironment(base);
+    Environment tenant = parent.withOverrides(Collections.singletonMap("app.server.port", "9090"));
+    Environment subTenant = tenant.withOverrides(Collections.singletonMap("shared", "t"));
+    assertEquals(8080, parent.getServerPort());
+    assertEquals(9090, tenant.getServerPort());
+    assertEquals("app", tenant.getApplicationName());
+    assertEquals("s", tenant.getValue("shared"));
+    assertEquals("t", subTenant.getValue("shared"));
+    assertEquals(9090, subTenant.getServerPort());
+    assertEquals(parent.asMap().size(), subTenant.asMap().size());
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.fredhopper.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class PropertiesParserTest {
+
+  @Test
+  public void parsesLikeProperties() throws Exception {
+    assertSameAsProperties("a=1\nb = 2\r\nc:3\rd 4\n e\t=\f5 \n");
+    assertSameAsProperties("# comment\n! comment \\\nnot.continued=x\n\n   \nempty=\nonly.key\n");
+    assertSameAsProperties("long = one \\\n    two \\\r\n\tthree\\\\\nnext=\\\n");
+    assertSameAsProperties("key\\ with\\=escapes\\:=va\\lue\\t\\n\\u00e9\\u20AC\nlast=end\\");
+    assertSameAsProperties("dup=1\ndup=2\nlatin1=éÿ\nblank.continued=a\\\n\nx=y");
+    assertSameAsProperties("#only comments\n#");
+    assertSameAsProperties("a=b\n\\\n");
+    assertSameAsProperties("");
+  }
+
+  @Test
+  public void parsesRandomContentLikeProperties() throws Exception {
+    final char[] alphabet = {'a', 'b', '=', ':', ' ', '\t', '\f', '\\', '\n', '\r', '#', '!', 'u',
+        '0', 'e', 't', 'n'};
+    final Random random = new Random(42);
+    for (int i = 0; i < 10_000; i++) {
+      final StringBuilder sb = new StringBuilder();
+      final int length = random.nextInt(40);
+      for (int j = 0; j < length; j++) {
+        sb.append(alphabet[random.nextInt(alphabet.length)]);
+      }
+      final String content = sb.toString();
+      Map<String, String> expected;
+      try {
+        expected = load(content);
+      } catch (RuntimeException e) {
+        expected = null;
+      }
+      try {
+        final Map<String, String> actual = parse(content);
+        if (expected != null) {
+          assertEquals(content, expected, actual);
+        }
+      } catch (IllegalArgumentException e) {
+        if (expected != null) {
+          throw new AssertionError(content, e);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void malformedUnicodeEscapeIsRejected() {
+    try {
+      parse("a=\\u00g1");
+      fail("Expected a malformed escape");
+    } catch (IllegalArgumentException e) {
+      assertEquals("Malformed \\uxxxx encoding.", e.getMessage());
+    }
+  }
+
+  private static void assertSameAsProperties(String content) throws Exception {
+    assertEquals(content, load(content), parse(content));
+  }
+
+  private static Map<String, String> parse(String content) {
+    return PropertiesParser.parse(ByteBuffer.wrap(content.getBytes(StandardCharsets.ISO_8859_1)));
+  }
+
+  private static Map<String, String> load(String content) throws Exception {
+    final Properties properties = new Properties();
+    properties.load(new ByteArrayInputStream(content.getBytes(StandardCharsets.ISO_8859_1)));
+    final Map<String, String> map = new HashMap<>();
+    properties.stringPropertyNames().forEach(p -> map.put(p, properties.getProperty(p)));
+    return map;
+  }
+
+}
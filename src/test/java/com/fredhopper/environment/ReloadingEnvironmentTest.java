@@ -0,0 +1,95 @@
+package com.fredhopper.environment;
+
+import static com.fredhopper.environment.TestFiles.write;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReloadingEnvironmentTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void reloadSwapsSnapshotAndReportsDifference() throws Exception {
+    Path file = write(folder.newFile("env.properties").toPath(), "a=1\nb=2\n");
+    try (ReloadingEnvironment env = new ReloadingEnvironment(Collections.emptyMap(), file, 1,
+        TimeUnit.HOURS)) {
+      BlockingQueue<Set<String>> changes = new LinkedBlockingQueue<>();
+      BlockingQueue<Map<String, String>> previous = new LinkedBlockingQueue<>();
+      env.addChangeListener((e, before, changedKeys) -> {
+        previous.add(before);
+        changes.add(changedKeys);
+      });
+      assertEquals("1", env.getValue("a"));
+      assertFalse(env.reload());
+      write(file, "a=10\nc=3\n");
+      assertTrue(env.reload());
+      assertEquals("10", env.getValue("a"));
+      assertEquals(10, env.getInt("a", 0));
+      assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), changes.poll());
+      Map<String, String> before = previous.poll();
+      assertEquals("1", before.get("a"));
+      assertEquals("2", before.get("b"));
+      assertFalse(before.containsKey("c"));
+    }
+  }
+
+  @Test
+  public void changedFileIsReloadedByWatcher() throws Exception {
+    Path file = write(folder.newFile("env.properties").toPath(), "a=1\n");
+    try (ReloadingEnvironment env = new ReloadingEnvironment(Collections.emptyMap(), file, 20,
+        TimeUnit.MILLISECONDS)) {
+      BlockingQueue<Environment> changes = new LinkedBlockingQueue<>();
+      env.addChangeListener((e, before, changedKeys) -> changes.add(e));
+      write(file, "a=2\n");
+      Environment changed = changes.poll(30, TimeUnit.SECONDS);
+      assertEquals("2", changed.getValue("a"));
+      assertEquals("2", env.getValue("a"));
+    }
+  }
+
+  @Test
+  public void interpolatedSnapshotIsExpandedAgainOnReload() throws Exception {
+    Path file = write(folder.newFile("env.properties").toPath(), "dir=/data/${name}\nname=a\n");
+    try (ReloadingEnvironment env = new ReloadingEnvironment(Collections.emptyMap(), file, 1,
+        TimeUnit.HOURS, true)) {
+      assertEquals("/data/a", env.getValue("dir"));
+      write(file, "dir=/data/${name}\nname=b\n");
+      assertTrue(env.reload());
+      assertEquals("/data/b", env.getValue("dir"));
+    }
+  }
+
+  @Test
+  public void directoriesAndGlobsAreRejected() throws Exception {
+    Path root = folder.getRoot().toPath();
+    for (String path : new String[] {root.toString(), root + "/*.properties"}) {
+      System.setProperty(Environment.ENVIRONMENT_FILE, path);
+      try (ReloadingEnvironment env = new ReloadingEnvironment(Collections.emptyMap())) {
+        fail("Expected a rejected environment file: " + path);
+      } catch (IllegalArgumentException e) {
+        assertEquals("A single environment file must be set in " + Environment.ENVIRONMENT_FILE
+            + " to reload: " + path, e.getMessage());
+      } finally {
+        System.clearProperty(Environment.ENVIRONMENT_FILE);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.fredhopper.environment;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class SubEnvironmentTest {
+
+  private static Map<String, String> values() {
+    Map<String, String> values = new HashMap<>();
+    values.put("myapp.server.host", "localhost");
+    values.put("myapp.server.port", "8080");
+    values.put("myapp.server.tls.enabled", "true");
+    values.put("myapp.serverless", "no");
+    values.put("myapp.root", "/opt/myapp");
+    values.put("other.server.port", "9090");
+    return values;
+  }
+
+  @Test
+  public void viewStripsPrefix() {
+    Environment server = new KeyValueEnvironment(values()).getSubEnvironment("myapp.server.");
+    assertEquals("localhost", server.getValue("host"));
+    assertEquals(8080, server.getInt("port", 0));
+    assertNull(server.getValue("myapp.server.port"));
+    assertNull(server.getValue("less"));
+    List<String> keys = new ArrayList<>(server.asMap().keySet());
+    assertEquals(Arrays.asList("host", "port", "tls.enabled"), keys);
+    assertEquals(3, server.asMap().size());
+    Environment tls = server.getSubEnvironment("tls.");
+    assertTrue(tls.getBoolean("enabled", false));
+    assertEquals(Collections.singletonMap("enabled", "true"), tls.asMap());
+    assertTrue(server.getSubEnvironment("missing.").asMap().isEmpty());
+    assertEquals(values().size(),
+        new KeyValueEnvironment(values()).getSubEnvironment("").asMap().size());
+  }
+
+  @Test
+  public void layeredAndInterpolatedEnvironmentsHaveViews() {
+    Environment layered =
+        Environment.createLayeredEnvironment(values(), Collections.singletonMap("myapp.server.port",
+            "8443"));
+    assertEquals("8443", layered.getSubEnvironment("myapp.server.").getValue("port"));
+    Map<String, String> values = values();
+    values.put("myapp.server.url", "http://${myapp.server.host}:${myapp.server.port}");
+    Environment server = new KeyValueEnvironment(values).interpolated()
+        .getSubEnvironment("myapp.server.");
+    assertEquals("http://localhost:8080", server.getValue("url"));
+  }
+
+}
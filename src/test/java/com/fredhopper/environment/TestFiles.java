@@ -0,0 +1,15 @@
+package com.fredhopper.environment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+final class TestFiles {
+
+  private TestFiles() {}
+
+  static Path write(Path file, String content) throws Exception {
+    return Files.write(file, content.getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+}
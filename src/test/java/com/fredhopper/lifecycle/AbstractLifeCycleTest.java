@@ -0,0 +1,157 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AbstractLifeCycleTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void asynchronousListenerDoesNotStallTransitions() throws Exception {
+    NoopLifeCycle lc = new NoopLifeCycle();
+    lc.setStateListenerExecutor(executor);
+    CountDownLatch release = new CountDownLatch(1);
+    List<State> received = new CopyOnWriteArrayList<>();
+    lc.addStateListener((from, to) -> {
+      release.await();
+      received.add(to);
+    });
+    long start = System.nanoTime();
+    lc.initLifeCycle();
+    lc.startLifeCycle();
+    lc.stopLifeCycle();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000L);
+    release.countDown();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (received.size() < 5 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(Arrays.asList(State.INITIALIZED, State.STARTING, State.RUNNING, State.STOPPING,
+        State.STOPPED), received);
+  }
+
+  @Test
+  public void listenerFailingWithErrorKeepsReceivingChanges() throws Exception {
+    List<Throwable> failures = new CopyOnWriteArrayList<>();
+    ExecutorService reporting = Executors.newSingleThreadExecutor(r -> {
+      Thread thread = new Thread(r);
+      thread.setUncaughtExceptionHandler((t, e) -> failures.add(e));
+      return thread;
+    });
+    try {
+      NoopLifeCycle lc = new NoopLifeCycle();
+      lc.setStateListenerExecutor(reporting);
+      List<State> received = new CopyOnWriteArrayList<>();
+      lc.addStateListener((from, to) -> {
+        received.add(to);
+        if (to == State.INITIALIZED) {
+          throw new AssertionError("listener");
+        }
+      });
+      lc.initLifeCycle();
+      lc.startLifeCycle();
+      awaitSize(received, 3);
+      assertEquals(Arrays.asList(State.INITIALIZED, State.STARTING, State.RUNNING), received);
+      assertEquals("listener", failures.get(0).getMessage());
+    } finally {
+      reporting.shutdownNow();
+    }
+  }
+
+  @Test
+  public void replacedExecutorKeepsOrderOfChanges() throws Exception {
+    ExecutorService other = Executors.newFixedThreadPool(4);
+    try {
+      NoopLifeCycle lc = new NoopLifeCycle();
+      lc.setStateListenerExecutor(executor);
+      CountDownLatch release = new CountDownLatch(1);
+      List<State> received = new CopyOnWriteArrayList<>();
+      lc.addStateListener((from, to) -> {
+        if (to == State.INITIALIZED) {
+          release.await();
+        }
+        received.add(to);
+      });
+      lc.initLifeCycle();
+      lc.setStateListenerExecutor(other);
+      lc.startLifeCycle();
+      lc.setStateListenerExecutor(null);
+      lc.stopLifeCycle();
+      release.countDown();
+      awaitSize(received, 5);
+      assertEquals(Arrays.asList(State.INITIALIZED, State.STARTING, State.RUNNING,
+          State.STOPPING, State.STOPPED), received);
+    } finally {
+      other.shutdownNow();
+    }
+  }
+
+  @Test
+  public void synchronousListenerCanStillFailTransition() throws Exception {
+    NoopLifeCycle lc = new NoopLifeCycle();
+    lc.setStateListenerExecutor(executor);
+    lc.addStateListener((SynchronousStateListener) (from, to) -> {
+      throw new IllegalStateException("veto " + to);
+    });
+    try {
+      lc.initLifeCycle();
+      fail("Expected veto");
+    } catch (IllegalStateException e) {
+      assertEquals("veto " + State.INITIALIZED, e.getMessage());
+    }
+  }
+
+  @Test
+  public void failedStartIsRolledBack() throws Exception {
+    AtomicInteger starts = new AtomicInteger();
+    AbstractLifeCycle lc = new NoopLifeCycle() {
+      @Override
+      protected void doStartLifeCycle() throws Exception {
+        if (starts.incrementAndGet() == 1) {
+          throw new IllegalStateException("start");
+        }
+      }
+    };
+    List<State> received = new CopyOnWriteArrayList<>();
+    lc.addStateListener((from, to) -> received.add(to));
+    lc.initLifeCycle();
+    try {
+      lc.startLifeCycle();
+      fail("Expected a failed start");
+    } catch (IllegalStateException e) {
+      assertEquals("start", e.getMessage());
+    }
+    assertEquals(State.INITIALIZED, lc.getState());
+    lc.startLifeCycle();
+    assertEquals(State.RUNNING, lc.getState());
+    assertEquals(Arrays.asList(State.INITIALIZED, State.STARTING, State.INITIALIZED,
+        State.STARTING, State.RUNNING), received);
+  }
+
+  private static void awaitSize(List<?> list, int size) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (list.size() < size && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+}
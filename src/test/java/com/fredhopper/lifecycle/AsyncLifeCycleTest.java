@@ -0,0 +1,166 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class AsyncLifeCycleTest {
+
+  private static class TimerLifeCycle extends AbstractAsyncLifeCycle {
+
+    private final ScheduledExecutorService timer;
+
+    TimerLifeCycle(Executor executor, ScheduledExecutorService timer) {
+      super(executor);
+      this.timer = timer;
+    }
+
+    @Override
+    protected CompletionStage<Void> doInitLifeCycleAsync() {
+      return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    protected CompletionStage<Void> doStartLifeCycleAsync() {
+      CompletableFuture<Void> started = new CompletableFuture<>();
+      timer.schedule(() -> started.complete(null), 10, TimeUnit.MILLISECONDS);
+      return started;
+    }
+
+    @Override
+    protected CompletionStage<Void> doStopLifeCycleAsync() {
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+  private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void shutdown() {
+    AbstractLifeCycle.setMetrics(null);
+    executor.shutdownNow();
+    timer.shutdownNow();
+  }
+
+  @Test
+  public void asyncTransitionsAreRecorded() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    AbstractLifeCycle.setMetrics(new LifeCycleMetrics() {
+      @Override
+      public void transitionCompleted(LifeCycle lifeCycle, State from, State to, long nanos) {
+        if (from == State.INITIALIZED) {
+          assertThat(nanos).isAtLeast(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        events.add(from + "->" + to);
+      }
+
+      @Override
+      public void transitionFailed(LifeCycle lifeCycle, State from, State to, long nanos,
+          Throwable failure) {
+        events.add(from + "-x" + to + ":" + failure.getClass().getSimpleName());
+      }
+    });
+    TimerLifeCycle lc = new TimerLifeCycle(executor, timer);
+    lc.initLifeCycleAsync().thenCompose(s -> lc.startLifeCycleAsync()).toCompletableFuture()
+        .get(10, TimeUnit.SECONDS);
+    try {
+      lc.initLifeCycleAsync().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    } catch (ExecutionException e) {
+      // Rejected as the object is running
+    }
+    assertEquals(Arrays.asList("STOPPED->INITIALIZED", "INITIALIZED->RUNNING",
+        "STOPPED-xINITIALIZED:Exception"), events);
+  }
+
+  @Test
+  public void manyComponentsAreStartedFromFewThreads() throws Exception {
+    List<TimerLifeCycle> components = new ArrayList<>();
+    List<CompletableFuture<State>> started = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      TimerLifeCycle lc = new TimerLifeCycle(executor, timer);
+      components.add(lc);
+      started.add(lc.initLifeCycleAsync().thenCompose(s -> lc.startLifeCycleAsync())
+          .toCompletableFuture());
+    }
+    CompletableFuture.allOf(started.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    for (TimerLifeCycle lc : components) {
+      assertEquals(State.RUNNING, lc.getState());
+    }
+  }
+
+  @Test
+  public void stateIsChangedOnExecutor() throws Exception {
+    Thread timerThread = timer.submit(Thread::currentThread).get();
+    List<Thread> threads = new CopyOnWriteArrayList<>();
+    TimerLifeCycle lc = new TimerLifeCycle(executor, timer);
+    lc.addStateListener((SynchronousStateListener) (from, to) -> {
+      if (to == State.RUNNING) {
+        threads.add(Thread.currentThread());
+      }
+    });
+    lc.initLifeCycleAsync().toCompletableFuture().get();
+    assertEquals(State.RUNNING, lc.startLifeCycleAsync().toCompletableFuture().get());
+    assertEquals(1, threads.size());
+    assertNotSame(timerThread, threads.get(0));
+  }
+
+  @Test
+  public void blockingLifeCycleIsAdaptedOnExecutor() throws Exception {
+    TestHttpServer server = new TestHttpServer();
+    AsyncLifeCycle async = AsyncLifeCycle.of(new Container(server, false, false), executor);
+    assertEquals(State.INITIALIZED, async.initLifeCycleAsync().toCompletableFuture().get());
+    assertEquals(State.RUNNING, async.startLifeCycleAsync().toCompletableFuture().get());
+    assertEquals(State.STOPPED, async.stopLifeCycleAsync().toCompletableFuture().get());
+  }
+
+  @Test
+  public void invalidTransitionCompletesExceptionally() throws Exception {
+    TimerLifeCycle lc = new TimerLifeCycle(executor, timer);
+    try {
+      lc.startLifeCycleAsync().toCompletableFuture().get();
+    } catch (ExecutionException e) {
+      assertTrue(e.getCause().getMessage().startsWith("Cannot change state"));
+      return;
+    }
+    throw new AssertionError("Expected failure");
+  }
+
+  @Test
+  public void failedStartIsRolledBack() throws Exception {
+    TimerLifeCycle lc = new TimerLifeCycle(executor, timer) {
+      @Override
+      protected CompletionStage<Void> doStartLifeCycleAsync() {
+        CompletableFuture<Void> started = new CompletableFuture<>();
+        started.completeExceptionally(new IllegalStateException("start"));
+        return started;
+      }
+    };
+    lc.initLifeCycleAsync().toCompletableFuture().get();
+    try {
+      lc.startLifeCycleAsync().toCompletableFuture().get();
+      throw new AssertionError("Expected failure");
+    } catch (ExecutionException e) {
+      assertEquals("start", e.getCause().getMessage());
+    }
+    assertEquals(State.INITIALIZED, lc.getState());
+  }
+
+}
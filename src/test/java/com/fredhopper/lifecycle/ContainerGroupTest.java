@@ -0,0 +1,237 @@
+package com.fredhopper.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class ContainerGroupTest {
+
+  private static class SlowLifeCycle extends NoopLifeCycle {
+
+    private final long delayMillis;
+    private final List<String> events;
+
+    SlowLifeCycle(String name, long delayMillis, List<String> events) {
+      super(name);
+      this.delayMillis = delayMillis;
+      this.events = events;
+    }
+
+    @Override
+    protected void doStartLifeCycle() throws Exception {
+      Thread.sleep(delayMillis);
+      events.add("start-" + this);
+    }
+
+    @Override
+    protected void doStopLifeCycle() throws Exception {
+      events.add("stop-" + this);
+    }
+  }
+
+  private static class EqualLifeCycle extends SlowLifeCycle {
+
+    EqualLifeCycle(String name, List<String> events) {
+      super(name, 0, events);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      return obj instanceof EqualLifeCycle;
+    }
+
+    @Override
+    public int hashCode() {
+      return 0;
+    }
+  }
+
+  @Test
+  public void startsInDependencyOrderAndStopsInReverse() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    SlowLifeCycle db = new SlowLifeCycle("db", 20, events);
+    SlowLifeCycle cache = new SlowLifeCycle("cache", 0, events);
+    SlowLifeCycle web = new SlowLifeCycle("web", 0, events);
+    ContainerGroup group = new ContainerGroup(4).add(web, db, cache).add(cache, db);
+    group.initLifeCycle();
+    assertEquals(3, group.getWaves().size());
+    group.startLifeCycle();
+    assertEquals(Arrays.asList("start-db", "start-cache", "start-web"), events);
+    for (LifeCycle lc : Arrays.asList(db, cache, web)) {
+      assertEquals(State.RUNNING, lc.getState());
+    }
+    events.clear();
+    group.stopLifeCycle();
+    assertEquals(Arrays.asList("stop-web", "stop-cache", "stop-db"), events);
+  }
+
+  @Test
+  public void startsIndependentMembersInParallel() throws Exception {
+    // Every member waits for all the others: the start only succeeds if they overlap
+    CyclicBarrier barrier = new CyclicBarrier(8);
+    ContainerGroup group = new ContainerGroup(8);
+    for (int i = 0; i < 8; i++) {
+      group.add(new AbstractLifeCycle() {
+        @Override
+        protected void doInitLifeCycle() throws Exception {}
+
+        @Override
+        protected void doStartLifeCycle() throws Exception {
+          barrier.await(10, TimeUnit.SECONDS);
+        }
+
+        @Override
+        protected void doStopLifeCycle() throws Exception {}
+      });
+    }
+    group.initLifeCycle();
+    group.startLifeCycle();
+    assertEquals(State.RUNNING, group.getState());
+    group.stopLifeCycle();
+  }
+
+  @Test
+  public void failedStartStopsEarlierWaves() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    AtomicBoolean fail = new AtomicBoolean(true);
+    SlowLifeCycle db = new SlowLifeCycle("db", 0, events);
+    SlowLifeCycle web = new SlowLifeCycle("web", 0, events) {
+      @Override
+      protected void doStartLifeCycle() throws Exception {
+        if (fail.getAndSet(false)) {
+          throw new IllegalStateException("web");
+        }
+        super.doStartLifeCycle();
+      }
+    };
+    ContainerGroup group = new ContainerGroup(2).add(web, db);
+    group.initLifeCycle();
+    try {
+      group.startLifeCycle();
+      fail("Expected a failed start");
+    } catch (IllegalStateException e) {
+      assertEquals("web", e.getMessage());
+    }
+    assertEquals(Arrays.asList("start-db", "stop-db"), events);
+    assertEquals(State.INITIALIZED, group.getState());
+    assertEquals(State.INITIALIZED, db.getState());
+    assertEquals(State.INITIALIZED, web.getState());
+    group.startLifeCycle();
+    assertEquals(State.RUNNING, db.getState());
+    assertEquals(State.RUNNING, web.getState());
+    group.stopLifeCycle();
+    assertEquals(State.STOPPED, db.getState());
+  }
+
+  @Test
+  public void failedStopKeepsDependenciesRunning() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    SlowLifeCycle db = new SlowLifeCycle("db", 0, events);
+    SlowLifeCycle cache = new SlowLifeCycle("cache", 0, events);
+    SlowLifeCycle web = new SlowLifeCycle("web", 0, events) {
+      @Override
+      protected void doStopLifeCycle() throws Exception {
+        throw new IllegalStateException("web");
+      }
+    };
+    ContainerGroup group = new ContainerGroup(2).add(web, cache).add(cache, db);
+    group.initLifeCycle();
+    group.startLifeCycle();
+    events.clear();
+    try {
+      group.stopLifeCycle();
+      fail("Expected a failed stop");
+    } catch (IllegalStateException e) {
+      assertEquals("web", e.getMessage());
+      assertEquals(2, e.getSuppressed().length);
+    }
+    assertTrue(events.isEmpty());
+    assertEquals(State.RUNNING, cache.getState());
+    assertEquals(State.RUNNING, db.getState());
+  }
+
+  @Test
+  public void rejectedMembersAreReportedAsFailures() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    SlowLifeCycle db = new SlowLifeCycle("db", 0, events);
+    SlowLifeCycle cache = new SlowLifeCycle("cache", 0, events);
+    AtomicBoolean reject = new AtomicBoolean();
+    ContainerGroup group = new ContainerGroup(command -> {
+      if (reject.getAndSet(false)) {
+        throw new RejectedExecutionException("rejected");
+      }
+      command.run();
+    }).add(db).add(cache);
+    group.initLifeCycle();
+    reject.set(true);
+    try {
+      group.startLifeCycle();
+      fail("Expected a rejected start");
+    } catch (RejectedExecutionException e) {
+      assertEquals("rejected", e.getMessage());
+    }
+    assertEquals(Arrays.asList("start-cache", "stop-cache"), events);
+    assertEquals(State.INITIALIZED, db.getState());
+  }
+
+  @Test
+  public void failedInitializationCanBeRetried() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    AtomicBoolean fail = new AtomicBoolean(true);
+    SlowLifeCycle db = new SlowLifeCycle("db", 0, events);
+    SlowLifeCycle web = new SlowLifeCycle("web", 0, events) {
+      @Override
+      protected void doInitLifeCycle() throws Exception {
+        if (fail.getAndSet(false)) {
+          throw new IllegalStateException("web");
+        }
+      }
+    };
+    ContainerGroup group = new ContainerGroup(2).add(web, db);
+    try {
+      group.initLifeCycle();
+      fail("Expected a failed initialization");
+    } catch (IllegalStateException e) {
+      assertEquals("web", e.getMessage());
+    }
+    assertEquals(State.STOPPED, group.getState());
+    assertEquals(State.INITIALIZED, db.getState());
+    assertEquals(State.STOPPED, web.getState());
+    group.initLifeCycle();
+    group.startLifeCycle();
+    assertEquals(Arrays.asList("start-db", "start-web"), events);
+  }
+
+  @Test
+  public void equalMembersAreToldApartByIdentity() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    SlowLifeCycle first = new EqualLifeCycle("first", events);
+    SlowLifeCycle second = new EqualLifeCycle("second", events);
+    SlowLifeCycle db = new SlowLifeCycle("db", 0, events);
+    ContainerGroup group = new ContainerGroup(2).add(first).add(second, db);
+    group.initLifeCycle();
+    assertEquals(Arrays.asList(Arrays.asList(first, db), Arrays.asList(second)),
+        group.getWaves());
+    group.startLifeCycle();
+    assertEquals(State.RUNNING, second.getState());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rejectsCyclicDependencies() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    SlowLifeCycle a = new SlowLifeCycle("a", 0, events);
+    SlowLifeCycle b = new SlowLifeCycle("b", 0, events);
+    new ContainerGroup().add(a, b).add(b, a).initLifeCycle();
+  }
+
+}
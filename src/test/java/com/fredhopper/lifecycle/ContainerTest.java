@@ -1,7 +1,12 @@
 package com.fredhopper.lifecycle;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Test;
 import org.junit.experimental.theories.Theories;
@@ -45,4 +50,64 @@ public class ContainerTest {
     assertEquals(lc.getState(), container.getState());
   }
 
+  @Test
+  public void awaitStateTimesOutWithoutTransition() throws Exception {
+    TestHttpServer server = new TestHttpServer();
+    Container container = new Container(server, false, false);
+    assertFalse(container.awaitState(State.RUNNING, 10, TimeUnit.MILLISECONDS));
+  }
+
+  @Test
+  public void awaitStateWakesUpOnTransition() throws Exception {
+    TestHttpServer server = new TestHttpServer();
+    server.initLifeCycle();
+    Thread starter = new Thread(() -> {
+      try {
+        Thread.sleep(20);
+        server.startLifeCycle();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    starter.start();
+    assertTrue(server.awaitState(State.RUNNING, 10, TimeUnit.SECONDS));
+    server.stopLifeCycle();
+  }
+
+  @Test
+  public void containerExecutesStagesOnSharedExecutor() throws Exception {
+    TestHttpServer server = new TestHttpServer();
+    Container container = new Container(server, LifeCycleExecutors.virtualThreads(), false);
+    container.initLifeCycle();
+    container.startLifeCycle();
+    assertEquals(State.RUNNING, server.get());
+    container.stopLifeCycle();
+    assertEquals(State.STOPPED, server.get());
+  }
+
+  @Test(timeout = 10_000)
+  public void containerReportsFailedStart() throws Exception {
+    AbstractLifeCycle lc = new AbstractLifeCycle() {
+      @Override
+      protected void doStopLifeCycle() throws Exception {}
+
+      @Override
+      protected void doStartLifeCycle() throws Exception {
+        throw new IllegalStateException("start");
+      }
+
+      @Override
+      protected void doInitLifeCycle() throws Exception {}
+    };
+    Container container = new Container(lc, true, false);
+    container.initLifeCycle();
+    try {
+      container.startLifeCycle();
+      fail("Expected a failed start");
+    } catch (IllegalStateException e) {
+      assertEquals("start", e.getMessage());
+    }
+    assertEquals(State.INITIALIZED, container.getState());
+  }
+
 }
@@ -0,0 +1,117 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class DrainableLifeCycleTest {
+
+  private static class TestServer extends DrainableLifeCycle {
+    private volatile long inFlightAtStop = -1;
+
+    @Override
+    protected void doInitLifeCycle() throws Exception {}
+
+    @Override
+    protected void doStartLifeCycle() throws Exception {}
+
+    @Override
+    protected void doStopAfterDrain() throws Exception {
+      inFlightAtStop = getInFlight();
+    }
+  }
+
+  @Test
+  public void pauseWaitsForWorkInFlight() throws Exception {
+    TestServer server = new TestServer();
+    assertFalse(server.tryEnter());
+    server.initLifeCycle();
+    server.startLifeCycle();
+    assertTrue(server.tryEnter());
+    CompletableFuture<Void> pause = CompletableFuture.runAsync(() -> {
+      try {
+        server.pause();
+      } catch (Exception e) {
+        throw new RuntimeException(e);
+      }
+    });
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (server.tryEnter()) {
+      server.exit();
+      assertThat(System.nanoTime()).isLessThan(deadline);
+    }
+    Thread.sleep(50);
+    assertFalse(pause.isDone());
+    assertEquals(State.RUNNING, server.getState());
+    server.exit();
+    pause.get(5, TimeUnit.SECONDS);
+    assertEquals(State.PAUSED, server.getState());
+    assertFalse(server.tryEnter());
+    server.resume();
+    assertTrue(server.tryEnter());
+    server.exit();
+  }
+
+  @Test
+  public void stopDrainsUntilDeadline() throws Exception {
+    TestServer server = new TestServer();
+    server.setDrainTimeout(50, TimeUnit.MILLISECONDS);
+    server.initLifeCycle();
+    server.startLifeCycle();
+    assertTrue(server.tryEnter());
+    long start = System.nanoTime();
+    server.stopLifeCycle();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isAtLeast(50L);
+    assertEquals(State.STOPPED, server.getState());
+    assertEquals(1, server.inFlightAtStop);
+    assertFalse(server.enter(1, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void enterWaitsWhilePaused() throws Exception {
+    TestServer server = new TestServer();
+    server.initLifeCycle();
+    server.startLifeCycle();
+    server.pause();
+    CompletableFuture<Boolean> entered = CompletableFuture.supplyAsync(() -> {
+      try {
+        return server.enter(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new RuntimeException(e);
+      }
+    });
+    Thread.sleep(50);
+    assertFalse(entered.isDone());
+    server.resume();
+    assertTrue(entered.get(5, TimeUnit.SECONDS));
+    assertEquals(1, server.getInFlight());
+    server.exit();
+  }
+
+  @Test
+  public void interruptedPauseAcceptsWorkAgain() throws Exception {
+    TestServer server = new TestServer();
+    server.initLifeCycle();
+    server.startLifeCycle();
+    assertTrue(server.tryEnter());
+    Thread.currentThread().interrupt();
+    try {
+      server.pause();
+      fail("Expected an interrupted pause");
+    } catch (InterruptedException e) {
+      // expected
+    }
+    assertEquals(State.RUNNING, server.getState());
+    assertTrue(server.tryEnter());
+    server.exit();
+    server.exit();
+  }
+
+}
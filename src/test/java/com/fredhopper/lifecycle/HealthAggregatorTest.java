@@ -0,0 +1,110 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.Test;
+
+public class HealthAggregatorTest {
+
+  @Test
+  public void aggregateFollowsChangesOfState() throws Exception {
+    NoopLifeCycle db = new NoopLifeCycle();
+    NoopLifeCycle reports = new NoopLifeCycle();
+    HealthAggregator aggregator =
+        new HealthAggregator().register("db", db).register("reports", reports, false);
+    HealthSnapshot snapshot = aggregator.getSnapshot();
+    assertEquals(Health.DOWN, snapshot.getStatus());
+    assertFalse(snapshot.isReady());
+    assertTrue(snapshot.isLive());
+    assertSame(snapshot, aggregator.getSnapshot());
+
+    db.initLifeCycle();
+    db.startLifeCycle();
+    assertEquals(Health.DEGRADED, aggregator.getSnapshot().getStatus());
+    assertTrue(aggregator.getSnapshot().isReady());
+    reports.initLifeCycle();
+    reports.startLifeCycle();
+    assertEquals(Health.UP, aggregator.getSnapshot().getStatus());
+    assertEquals("{\"status\": \"UP\", \"ready\": true, \"live\": true, "
+        + "\"components\": {\"db\": \"RUNNING\", \"reports\": \"RUNNING\"}}\n",
+        aggregator.getSnapshot().toJson());
+
+    db.pause();
+    assertEquals(Health.DOWN, aggregator.getSnapshot().getStatus());
+    assertTrue(aggregator.getSnapshot().isLive());
+    db.resume();
+    db.stopLifeCycle();
+    assertFalse(aggregator.getSnapshot().isLive());
+    assertEquals(State.STOPPED, aggregator.getSnapshot().getComponents().get("db"));
+
+    aggregator.unregister("db");
+    assertTrue(db.getStateListeners().isEmpty());
+    assertEquals(Health.UP, aggregator.getSnapshot().getStatus());
+    assertTrue(aggregator.getSnapshot().isLive());
+  }
+
+  @Test
+  public void componentWithoutListenersIsRejected() {
+    try {
+      new HealthAggregator().register("fixed", () -> State.RUNNING);
+      fail("Expected a component without listeners");
+    } catch (IllegalArgumentException e) {
+      assertThat(e.getMessage()).startsWith("Cannot subscribe to the state of ");
+    }
+  }
+
+  @Test
+  public void endpointServesSnapshot() throws Exception {
+    NoopLifeCycle db = new NoopLifeCycle();
+    HealthAggregator aggregator = new HealthAggregator().register("db", db);
+    HealthEndpoint endpoint = new HealthEndpoint(aggregator, 0);
+    endpoint.initLifeCycle();
+    endpoint.startLifeCycle();
+    try {
+      assertEquals(503, get(endpoint, "/health/ready"));
+      assertEquals(200, get(endpoint, "/health/live"));
+      db.initLifeCycle();
+      db.startLifeCycle();
+      assertEquals(200, get(endpoint, "/health/ready"));
+      assertEquals(200, get(endpoint, "/health"));
+      assertEquals(404, get(endpoint, "/healthz"));
+      assertEquals(404, get(endpoint, "/health/ready/db"));
+    } finally {
+      endpoint.stopLifeCycle();
+    }
+  }
+
+  private static int get(HealthEndpoint endpoint, String path) throws Exception {
+    HttpURLConnection connection = (HttpURLConnection) new URL(
+        "http://localhost:" + endpoint.getPort() + path).openConnection();
+    try {
+      int status = connection.getResponseCode();
+      if (status == 404) {
+        return status;
+      }
+      ByteArrayOutputStream body = new ByteArrayOutputStream();
+      try (InputStream in =
+          status == 200 ? connection.getInputStream() : connection.getErrorStream()) {
+        byte[] buffer = new byte[1024];
+        for (int n; (n = in.read(buffer)) > 0;) {
+          body.write(buffer, 0, n);
+        }
+      }
+      assertThat(body.toString("UTF-8")).contains("\"db\": ");
+      return status;
+    } finally {
+      connection.disconnect();
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+package com.fredhopper.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LazyLifeCycleTest {
+
+  private static class CountingLifeCycle extends NoopLifeCycle {
+    private final AtomicInteger starts = new AtomicInteger();
+
+    @Override
+    protected void doStartLifeCycle() throws Exception {
+      starts.incrementAndGet();
+      Thread.sleep(20);
+    }
+  }
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(8);
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+  @After
+  public void shutdown() {
+    executor.shutdownNow();
+    scheduler.shutdownNow();
+  }
+
+  @Test
+  public void concurrentFirstUsesStartOnce() throws Exception {
+    CountingLifeCycle delegate = new CountingLifeCycle();
+    LazyLifeCycle<CountingLifeCycle> lazy = new LazyLifeCycle<>(delegate);
+    Container container = new Container(lazy, false, false);
+    container.initLifeCycle();
+    container.startLifeCycle();
+    assertEquals(State.RUNNING, lazy.getState());
+    assertEquals(State.INITIALIZED, delegate.getState());
+    CountDownLatch ready = new CountDownLatch(1);
+    List<Future<CountingLifeCycle>> uses = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      uses.add(executor.submit(() -> {
+        ready.await();
+        return lazy.use();
+      }));
+    }
+    ready.countDown();
+    for (Future<CountingLifeCycle> use : uses) {
+      assertSame(delegate, use.get(5, TimeUnit.SECONDS));
+    }
+    assertEquals(1, delegate.starts.get());
+    assertEquals(State.RUNNING, delegate.getState());
+    container.stopLifeCycle();
+    assertEquals(State.STOPPED, delegate.getState());
+  }
+
+  @Test
+  public void idleObjectIsPausedAndResumed() throws Exception {
+    CountingLifeCycle delegate = new CountingLifeCycle();
+    LazyLifeCycle<CountingLifeCycle> lazy =
+        new LazyLifeCycle<>(delegate, 50, TimeUnit.MILLISECONDS, scheduler);
+    lazy.initLifeCycle();
+    lazy.startLifeCycle();
+    lazy.use();
+    assertTrue(delegate.awaitState(State.PAUSED, 5, TimeUnit.SECONDS));
+    assertSame(delegate, lazy.use());
+    assertEquals(State.RUNNING, delegate.getState());
+    assertEquals(1, delegate.starts.get());
+    lazy.stopLifeCycle();
+    assertEquals(State.STOPPED, delegate.getState());
+  }
+
+  @Test
+  public void unusedObjectIsNeverStarted() throws Exception {
+    CountingLifeCycle delegate = new CountingLifeCycle();
+    LazyLifeCycle<CountingLifeCycle> lazy = new LazyLifeCycle<>(delegate);
+    lazy.initLifeCycle();
+    try {
+      lazy.use();
+      fail("Expected a use before start");
+    } catch (IllegalStateException e) {
+      assertEquals("Cannot use " + delegate + " of " + lazy + " in INITIALIZED", e.getMessage());
+    }
+    lazy.startLifeCycle();
+    lazy.stopLifeCycle();
+    assertEquals(0, delegate.starts.get());
+    assertEquals(State.INITIALIZED, delegate.getState());
+  }
+
+}
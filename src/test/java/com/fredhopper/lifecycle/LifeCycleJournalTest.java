@@ -0,0 +1,134 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.fredhopper.lifecycle.LifeCycleJournal.Entry;
+import com.fredhopper.lifecycle.LifeCycleJournal.Outcome;
+
+public class LifeCycleJournalTest {
+
+  @After
+  public void disableJournal() {
+    AbstractLifeCycle.setJournal(null);
+  }
+
+  @Test
+  public void attemptsAreRecordedPerComponent() throws Exception {
+    LifeCycleJournal journal = new LifeCycleJournal(16);
+    AbstractLifeCycle.setJournal(journal);
+    NoopLifeCycle first = new NoopLifeCycle("noop \"1\"");
+    NoopLifeCycle second = new NoopLifeCycle("noop \"1\"");
+    first.initLifeCycle();
+    second.initLifeCycle();
+    try {
+      first.resume();
+      fail("Expected a rejected change");
+    } catch (Exception e) {
+      assertThat(e.getMessage()).contains("Cannot change state from PAUSED to RUNNING");
+    }
+    first.startLifeCycle();
+    List<Entry> entries = journal.entries(first);
+    assertEquals("[STOPPED->INITIALIZED:CHANGED:INITIALIZED, PAUSED->RUNNING:REJECTED:INITIALIZED,"
+        + " INITIALIZED->STARTING:CHANGED:STARTING, STARTING->RUNNING:CHANGED:RUNNING]",
+        describe(entries));
+    assertEquals(Thread.currentThread().getName(), entries.get(0).getThread());
+    assertThat(entries.get(0).getTimestamp()).isAtMost(System.currentTimeMillis());
+    assertEquals(5, journal.entries().size());
+    assertEquals(second, journal.entries().get(1).getComponent());
+    String json = journal.toJson();
+    assertThat(json).startsWith("[\n  {\"sequence\": 0, \"timestamp\": \"");
+    assertThat(json).contains("\"component\": \"noop \\\"1\\\"\", \"from\": \"PAUSED\", "
+        + "\"to\": \"RUNNING\", \"actual\": \"INITIALIZED\", \"outcome\": \"REJECTED\"");
+    assertEquals("[]\n", new LifeCycleJournal().toJson());
+  }
+
+  @Test
+  public void lastEntriesAreKept() throws Exception {
+    LifeCycleJournal journal = new LifeCycleJournal(5);
+    assertEquals(8, journal.capacity());
+    AbstractLifeCycle.setJournal(journal);
+    NoopLifeCycle lc = new NoopLifeCycle("noop \"1\"");
+    for (int i = 0; i < 10; i++) {
+      lc.initLifeCycle();
+      lc.startLifeCycle();
+      lc.stopLifeCycle();
+    }
+    List<Entry> entries = journal.entries();
+    assertEquals(8, entries.size());
+    assertEquals(42, entries.get(0).getSequence());
+    assertEquals(State.STOPPED, entries.get(7).getTo());
+  }
+
+  @Test
+  public void concurrentAttemptsAreConsistent() throws Exception {
+    LifeCycleJournal journal = new LifeCycleJournal(64);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      for (int i = 0; i < 4; i++) {
+        executor.execute(() -> {
+          for (int j = 0; j < 100_000; j++) {
+            journal.record(null, State.RUNNING, State.PAUSED, State.PAUSED, Outcome.CHANGED);
+          }
+        });
+      }
+      executor.shutdown();
+      while (!executor.awaitTermination(1, TimeUnit.MILLISECONDS)) {
+        for (Entry entry : journal.entries()) {
+          assertEquals(State.PAUSED, entry.getActual());
+          assertEquals(Outcome.CHANGED, entry.getOutcome());
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    assertEquals(64, journal.entries().size());
+  }
+
+  @Test
+  public void componentsAndThreadsAreNotRetained() throws Exception {
+    LifeCycleJournal journal = new LifeCycleJournal(16);
+    AbstractLifeCycle.setJournal(journal);
+    Thread thread = new Thread(() -> {
+      try {
+        new NoopLifeCycle("noop \"1\"").initLifeCycle();
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    }, "initializer");
+    thread.start();
+    thread.join();
+    thread.setName("renamed");
+    WeakReference<Thread> terminated = new WeakReference<>(thread);
+    thread = null;
+    for (int i = 0; i < 100
+        && (terminated.get() != null || journal.entries().get(0).getComponent() != null); i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertNull(terminated.get());
+    Entry entry = journal.entries().get(0);
+    assertEquals("initializer", entry.getThread());
+    assertNull(entry.getComponent());
+    assertThat(journal.toJson()).contains("\"component\": \"null\"");
+  }
+
+  private static String describe(List<Entry> entries) {
+    return entries.stream()
+        .map(e -> e.getFrom() + "->" + e.getTo() + ":" + e.getOutcome() + ":" + e.getActual())
+        .collect(Collectors.toList()).toString();
+  }
+
+}
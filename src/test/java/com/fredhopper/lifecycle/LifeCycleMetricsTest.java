@@ -0,0 +1,171 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+public class LifeCycleMetricsTest {
+
+  private static class TestLifeCycle extends NoopLifeCycle {
+    private volatile boolean failStart;
+
+    @Override
+    protected void doStartLifeCycle() throws Exception {
+      if (failStart) {
+        throw new IllegalStateException("start");
+      }
+    }
+  }
+
+  @After
+  public void disableMetrics() {
+    AbstractLifeCycle.setMetrics(null);
+  }
+
+  @Test
+  public void transitionsAndListenersAreRecorded() throws Exception {
+    List<String> events = new CopyOnWriteArrayList<>();
+    AbstractLifeCycle.setMetrics(new LifeCycleMetrics() {
+      @Override
+      public void transitionCompleted(LifeCycle lifeCycle, State from, State to, long nanos) {
+        assertThat(nanos).isAtLeast(0L);
+        events.add(from + "->" + to);
+      }
+
+      @Override
+      public void transitionFailed(LifeCycle lifeCycle, State from, State to, long nanos,
+          Throwable failure) {
+        events.add(from + "-x" + to + ":" + failure.getMessage());
+      }
+
+      @Override
+      public void listenerNotified(LifeCycle lifeCycle, StateListener listener, State from,
+          State to, long nanos) {
+        events.add("listener:" + to);
+      }
+
+      @Override
+      public void listenerFailed(LifeCycle lifeCycle, StateListener listener, State from,
+          State to, Throwable failure) {
+        events.add("listener-x" + to);
+      }
+    });
+    TestLifeCycle lc = new TestLifeCycle();
+    lc.addStateListener((from, to) -> {
+      if (to == State.STOPPING) {
+        throw new IllegalStateException("listener");
+      }
+    });
+    lc.initLifeCycle();
+    lc.startLifeCycle();
+    lc.pause();
+    lc.resume();
+    try {
+      lc.stopLifeCycle();
+      fail("Expected a failing listener");
+    } catch (IllegalStateException e) {
+      assertEquals("listener", e.getMessage());
+    }
+    assertEquals(Arrays.asList("listener:INITIALIZED", "STOPPED->INITIALIZED",
+        "listener:STARTING", "listener:RUNNING", "INITIALIZED->RUNNING", "listener:PAUSED",
+        "RUNNING->PAUSED", "listener:RUNNING", "PAUSED->RUNNING", "listener-xSTOPPING",
+        "RUNNING-xSTOPPED:listener"), events);
+  }
+
+  @Test
+  public void noopIsInstalledByDefault() {
+    assertSame(LifeCycleMetrics.NOOP, AbstractLifeCycle.getMetrics());
+  }
+
+  @Test
+  public void jmxBeanExposesMetrics() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    JmxLifeCycleMetrics metrics = new JmxLifeCycleMetrics(server);
+    AbstractLifeCycle.setMetrics(metrics);
+    TestLifeCycle lc = new TestLifeCycle();
+    lc.addStateListener((from, to) -> {});
+    lc.initLifeCycle();
+    lc.failStart = true;
+    try {
+      lc.startLifeCycle();
+      fail("Expected a failing start");
+    } catch (IllegalStateException e) {
+      assertEquals("start", e.getMessage());
+    }
+    ObjectName name = metrics.getObjectName(lc);
+    assertEquals("INITIALIZED", server.getAttribute(name, "State"));
+    assertEquals(1L, server.getAttribute(name, "Transitions"));
+    assertEquals(1L, server.getAttribute(name, "TransitionFailures"));
+    assertEquals(3L, server.getAttribute(name, "ListenerNotifications"));
+    assertThat((Long) server.getAttribute(name, "LastInitNanos")).isAtLeast(0L);
+    assertEquals(-1L, server.getAttribute(name, "LastStartNanos"));
+    metrics.unregister(lc);
+    assertThat(server.isRegistered(name)).isFalse();
+  }
+
+  @Test
+  public void jmxBeanOfDiscardedObjectIsUnregistered() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    JmxLifeCycleMetrics metrics = new JmxLifeCycleMetrics(server);
+    AbstractLifeCycle.setMetrics(metrics);
+    TestLifeCycle discarded = new TestLifeCycle();
+    discarded.initLifeCycle();
+    ObjectName name = metrics.getObjectName(discarded);
+    WeakReference<TestLifeCycle> reference = new WeakReference<>(discarded);
+    discarded = null;
+    TestLifeCycle other = new TestLifeCycle();
+    other.initLifeCycle();
+    other.startLifeCycle();
+    for (int i = 0; i < 100 && server.isRegistered(name); i++) {
+      System.gc();
+      Thread.sleep(10);
+      other.pause();
+      other.resume();
+    }
+    assertThat(reference.get()).isNull();
+    assertThat(server.isRegistered(name)).isFalse();
+    metrics.unregister(other);
+  }
+
+  @Test
+  public void jmxBeansOfEqualNamesDoNotCollide() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    JmxLifeCycleMetrics metrics = new JmxLifeCycleMetrics(server);
+    AbstractLifeCycle.setMetrics(metrics);
+    TestLifeCycle first = new TestLifeCycle() {
+      @Override
+      public String toString() {
+        return "service";
+      }
+    };
+    TestLifeCycle second = new TestLifeCycle() {
+      @Override
+      public String toString() {
+        return "service";
+      }
+    };
+    first.initLifeCycle();
+    second.initLifeCycle();
+    ObjectName firstName = metrics.getObjectName(first);
+    ObjectName secondName = metrics.getObjectName(second);
+    assertThat(firstName).isNotEqualTo(secondName);
+    assertThat(server.isRegistered(firstName)).isTrue();
+    assertThat(server.isRegistered(secondName)).isTrue();
+    metrics.unregister(first);
+    metrics.unregister(second);
+  }
+
+}
@@ -0,0 +1,29 @@
+package com.fredhopper.lifecycle;
+
+class NoopLifeCycle extends AbstractLifeCycle {
+
+  private final String name;
+
+  NoopLifeCycle() {
+    this(null);
+  }
+
+  NoopLifeCycle(String name) {
+    this.name = name;
+  }
+
+  @Override
+  protected void doInitLifeCycle() throws Exception {}
+
+  @Override
+  protected void doStartLifeCycle() throws Exception {}
+
+  @Override
+  protected void doStopLifeCycle() throws Exception {}
+
+  @Override
+  public String toString() {
+    return name == null ? super.toString() : name;
+  }
+
+}
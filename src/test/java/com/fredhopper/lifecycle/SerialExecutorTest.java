@@ -0,0 +1,37 @@
+package com.fredhopper.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public class SerialExecutorTest {
+
+  @Test
+  public void rejectedTaskIsNotQueued() throws Exception {
+    AtomicBoolean reject = new AtomicBoolean(true);
+    SerialExecutor executor = new SerialExecutor(r -> {
+      if (reject.get()) {
+        throw new RejectedExecutionException();
+      }
+      r.run();
+    });
+    List<String> events = new CopyOnWriteArrayList<>();
+    try {
+      executor.execute(() -> events.add("rejected"));
+      fail("Expected a rejected task");
+    } catch (RejectedExecutionException e) {
+      // expected
+    }
+    reject.set(false);
+    executor.execute(() -> events.add("accepted"));
+    assertEquals(1, events.size());
+    assertEquals("accepted", events.get(0));
+  }
+
+}
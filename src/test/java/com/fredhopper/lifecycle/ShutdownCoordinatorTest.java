@@ -0,0 +1,206 @@
+package com.fredhopper.lifecycle;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ShutdownCoordinatorTest {
+
+  private static class StoppingLifeCycle extends NoopLifeCycle {
+
+    private final long stopMillis;
+    private final List<String> stopped;
+
+    StoppingLifeCycle(String name, long stopMillis, List<String> stopped) throws Exception {
+      super(name);
+      this.stopMillis = stopMillis;
+      this.stopped = stopped;
+      initLifeCycle();
+      startLifeCycle();
+    }
+
+    @Override
+    protected void doStopLifeCycle() throws Exception {
+      Thread.sleep(stopMillis);
+      stopped.add(toString());
+    }
+  }
+
+  @Test
+  public void stopsDependentsBeforeDependencies() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 10, stopped);
+    StoppingLifeCycle web = new StoppingLifeCycle("web", 10, stopped);
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.register(db);
+    coordinator.register(web, db);
+    assertTrue(coordinator.stopAll().isEmpty());
+    assertEquals(Arrays.asList("web", "db"), stopped);
+    assertEquals(State.STOPPED, db.getState());
+  }
+
+  @Test
+  public void reportsComponentsOverrunningDeadline() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle slow = new StoppingLifeCycle("slow", 5_000, stopped);
+    StoppingLifeCycle fast = new StoppingLifeCycle("fast", 0, stopped);
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.setComponentTimeout(50, TimeUnit.MILLISECONDS);
+    coordinator.register(slow);
+    coordinator.register(fast);
+    long start = System.nanoTime();
+    Map<LifeCycle, State> overran = coordinator.stopAll();
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000L);
+    assertEquals(1, overran.size());
+    assertEquals(State.STOPPING, overran.get(slow));
+    assertEquals(State.STOPPED, fast.getState());
+  }
+
+  @Test
+  public void reportsComponentsFailingToStop() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle failing = new StoppingLifeCycle("failing", 0, stopped) {
+      @Override
+      protected void doStopLifeCycle() throws Exception {
+        throw new IllegalStateException("failing");
+      }
+    };
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 0, stopped);
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.register(failing, db);
+    Map<LifeCycle, State> overran = coordinator.stopAll();
+    assertEquals(2, overran.size());
+    assertEquals(State.STOPPING, overran.get(failing));
+    assertEquals(State.RUNNING, overran.get(db));
+    assertTrue(stopped.isEmpty());
+  }
+
+  @Test
+  public void interruptionStopsWaitingAndSkipsLaterWaves() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle slow = new StoppingLifeCycle("slow", 5_000, stopped);
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 0, stopped);
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.register(slow, db);
+    Thread.currentThread().interrupt();
+    long start = System.nanoTime();
+    Map<LifeCycle, State> overran;
+    try {
+      overran = coordinator.stopAll();
+      assertTrue(Thread.currentThread().isInterrupted());
+    } finally {
+      Thread.interrupted();
+    }
+    assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000L);
+    assertEquals(1, overran.size());
+    assertTrue(overran.containsKey(slow));
+    assertEquals(State.RUNNING, db.getState());
+    assertTrue(stopped.isEmpty());
+  }
+
+  @Test
+  public void onlyStartedComponentsAreReportedAfterGlobalDeadline() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle running = new StoppingLifeCycle("running", 0, stopped);
+    StoppingLifeCycle done = new StoppingLifeCycle("done", 0, stopped);
+    done.stopLifeCycle();
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.setGlobalTimeout(0, TimeUnit.MILLISECONDS);
+    coordinator.register(running);
+    coordinator.register(done);
+    coordinator.register(new NoopLifeCycle());
+    Map<LifeCycle, State> overran = coordinator.stopAll();
+    assertEquals(1, overran.size());
+    assertEquals(State.RUNNING, overran.get(running));
+  }
+
+  @Test
+  public void rejectsCyclicRegistration() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 0, stopped);
+    StoppingLifeCycle web = new StoppingLifeCycle("web", 0, stopped);
+    ShutdownCoordinator coordinator = new ShutdownCoordinator(false);
+    coordinator.register(web, db);
+    try {
+      coordinator.register(db, web);
+      fail("Expected a cyclic registration");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    assertTrue(coordinator.stopAll().isEmpty());
+    assertEquals(Arrays.asList("web", "db"), stopped);
+  }
+
+  @Test
+  public void containerRegistersManagedLifeCycle() throws Exception {
+    TestHttpServer server = new TestHttpServer();
+    Container container = new Container(server);
+    ShutdownCoordinator coordinator = ShutdownCoordinator.getInstance();
+    assertFalse(coordinator.getLifeCycles().contains(server));
+    container.initLifeCycle();
+    container.startLifeCycle();
+    assertTrue(coordinator.getLifeCycles().contains(server));
+    container.stopLifeCycle();
+    assertFalse(coordinator.getLifeCycles().contains(server));
+  }
+
+  @Test
+  public void containerGroupOrdersShutdownOfContainers() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 0, stopped);
+    StoppingLifeCycle web = new StoppingLifeCycle("web", 50, stopped);
+    db.stopLifeCycle();
+    web.stopLifeCycle();
+    stopped.clear();
+    Container dbContainer = new Container(db);
+    ContainerGroup group =
+        new ContainerGroup().add(dbContainer).add(new Container(web), dbContainer);
+    group.initLifeCycle();
+    group.startLifeCycle();
+    ShutdownCoordinator coordinator = ShutdownCoordinator.getInstance();
+    try {
+      assertTrue(coordinator.stopAll().isEmpty());
+      assertEquals(Arrays.asList("web", "db"), stopped);
+    } finally {
+      group.stopLifeCycle();
+      coordinator.unregister(web);
+      coordinator.unregister(db);
+    }
+  }
+
+  @Test
+  public void restartedContainerKeepsRegisteredDependencies() throws Exception {
+    List<String> stopped = new CopyOnWriteArrayList<>();
+    StoppingLifeCycle db = new StoppingLifeCycle("db", 0, stopped);
+    StoppingLifeCycle web = new StoppingLifeCycle("web", 50, stopped);
+    web.stopLifeCycle();
+    stopped.clear();
+    ShutdownCoordinator coordinator = ShutdownCoordinator.getInstance();
+    coordinator.register(web, db);
+    Container container = new Container(web);
+    try {
+      container.initLifeCycle();
+      container.startLifeCycle();
+      container.stopLifeCycle();
+      stopped.clear();
+      container.initLifeCycle();
+      container.startLifeCycle();
+      assertTrue(coordinator.stopAll().isEmpty());
+      assertEquals(Arrays.asList("web", "db"), stopped);
+    } finally {
+      coordinator.unregister(web);
+      coordinator.unregister(db);
+    }
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.fredhopper.lifecycle;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class StateListenerRegistryTest {
+
+  @Test
+  public void removeOnlyRemovesFirstOccurrence() {
+    StateListener a = (from, to) -> {};
+    StateListener b = (from, to) -> {};
+    StateListenerRegistry registry = new StateListenerRegistry();
+    registry.add(a);
+    registry.add(b);
+    registry.add(a);
+    assertTrue(registry.remove(a));
+    assertArrayEquals(new StateListener[] {b, a}, registry.snapshot());
+    assertFalse(registry.remove((StateListener) (from, to) -> {}));
+    assertTrue(registry.removeIf(l -> true));
+    assertTrue(registry.isEmpty());
+  }
+
+  @Test
+  public void removalIsReportedOnceNoOccurrenceRemains() {
+    StateListener a = (from, to) -> {};
+    StateListener b = (from, to) -> {};
+    List<StateListener> removed = new ArrayList<>();
+    StateListenerRegistry registry = new StateListenerRegistry(removed::add);
+    registry.addAll(Arrays.asList(a, b, a));
+    registry.remove(a);
+    assertTrue(removed.isEmpty());
+    Iterator<StateListener> iterator = registry.iterator();
+    iterator.next();
+    iterator.remove();
+    assertEquals(Collections.singletonList(b), removed);
+    registry.clear();
+    assertEquals(Arrays.asList(b, a), removed);
+  }
+
+  @Test
+  public void bulkAndIteratorRemovalsAreSupported() {
+    StateListener a = (from, to) -> {};
+    StateListener b = (from, to) -> {};
+    StateListener c = (from, to) -> {};
+    StateListenerRegistry registry = new StateListenerRegistry();
+    registry.addAll(Arrays.asList(a, b, c, a));
+    assertTrue(registry.removeAll(Collections.singleton(a)));
+    assertArrayEquals(new StateListener[] {b, c}, registry.snapshot());
+    assertTrue(registry.retainAll(Collections.singleton(c)));
+    assertArrayEquals(new StateListener[] {c}, registry.snapshot());
+    registry.add(b);
+    Iterator<StateListener> iterator = registry.iterator();
+    assertEquals(c, iterator.next());
+    iterator.remove();
+    assertEquals(b, iterator.next());
+    assertFalse(iterator.hasNext());
+    assertArrayEquals(new StateListener[] {b}, registry.snapshot());
+  }
+
+  @Test
+  public void concurrentModificationsAreNotLost() throws Exception {
+    StateListenerRegistry registry = new StateListenerRegistry();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 1_000; i++) {
+            StateListener listener = (from, to) -> {};
+            registry.add(listener);
+            if (i % 2 == 0) {
+              registry.remove(listener);
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertEquals(4 * 500, registry.size());
+  }
+
+}
@@ -0,0 +1,97 @@
+package com.fredhopper.lifecycle;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.fredhopper.lifecycle.Supervisor.Strategy;
+
+public class SupervisorTest {
+
+  private static class FlakyLifeCycle extends NoopLifeCycle {
+    private final int failures;
+    private final AtomicInteger starts = new AtomicInteger();
+
+    FlakyLifeCycle(int failures) {
+      this.failures = failures;
+    }
+
+    @Override
+    protected void doStartLifeCycle() throws Exception {
+      if (starts.incrementAndGet() <= failures) {
+        throw new IllegalStateException("flaky");
+      }
+    }
+  }
+
+  @Test
+  public void oneForOneRestartsFailedChild() throws Exception {
+    FlakyLifeCycle flaky = new FlakyLifeCycle(3);
+    FlakyLifeCycle healthy = new FlakyLifeCycle(0);
+    Supervisor supervisor =
+        new Supervisor(Strategy.ONE_FOR_ONE, 1, 10, TimeUnit.MILLISECONDS, Integer.MAX_VALUE)
+            .add(healthy).add(flaky);
+    supervisor.initLifeCycle();
+    supervisor.startLifeCycle();
+    assertEquals(State.RUNNING, supervisor.getState());
+    assertTrue(flaky.awaitState(State.RUNNING, 5, TimeUnit.SECONDS));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (supervisor.getRestarts(flaky) < 1 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(3, supervisor.getFailures(flaky));
+    assertEquals(1, supervisor.getRestarts(flaky));
+    assertEquals(0, supervisor.getRestarts(healthy));
+    assertEquals(1, healthy.starts.get());
+    supervisor.stopLifeCycle();
+    assertEquals(State.STOPPED, flaky.getState());
+    assertEquals(State.STOPPED, healthy.getState());
+  }
+
+  @Test
+  public void oneForAllRestartsAllChildren() throws Exception {
+    FlakyLifeCycle first = new FlakyLifeCycle(0);
+    FlakyLifeCycle second = new FlakyLifeCycle(0);
+    Supervisor supervisor =
+        new Supervisor(Strategy.ONE_FOR_ALL, 1, 10, TimeUnit.MILLISECONDS, Integer.MAX_VALUE)
+            .add(first).add(second);
+    supervisor.initLifeCycle();
+    supervisor.startLifeCycle();
+    supervisor.reportFailure(second, new IllegalStateException("lost connection"));
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (supervisor.getRestarts() < 2 && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertEquals(1, supervisor.getRestarts(first));
+    assertEquals(1, supervisor.getRestarts(second));
+    assertEquals(2, first.starts.get());
+    assertEquals(State.RUNNING, first.getState());
+    assertEquals(State.RUNNING, second.getState());
+    supervisor.stopLifeCycle();
+  }
+
+  @Test
+  public void supervisorGivesUpAfterMaxRestarts() throws Exception {
+    FlakyLifeCycle broken = new FlakyLifeCycle(Integer.MAX_VALUE);
+    Supervisor supervisor =
+        new Supervisor(Strategy.ONE_FOR_ONE, 1, 10, TimeUnit.MILLISECONDS, 2).add(broken);
+    supervisor.initLifeCycle();
+    supervisor.startLifeCycle();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (!supervisor.isGivenUp(broken) && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertTrue(supervisor.isGivenUp(broken));
+    assertEquals("flaky", supervisor.getLastFailure(broken).getMessage());
+    assertEquals(3, supervisor.getFailures(broken));
+    assertEquals(3, broken.starts.get());
+    assertEquals(0, supervisor.getRestarts(broken));
+    assertEquals(State.INITIALIZED, broken.getState());
+    supervisor.stopLifeCycle();
+  }
+
+}